@@ -1,9 +1,94 @@
 import java.util.Scanner;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Formatter;
+import java.util.HashMap;
+import java.util.Random;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
 
 public class CSVAnalyzer {
     
+    static final String MISSING = "[MISSING]";
+    static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    static final long MAX_MAPPED_CHUNK = 1L << 30;
+    static final long MIN_PARALLEL_CHUNK = 1L << 20;
+    static final int BOUNDARY_SCAN_WINDOW = 1 << 20;
+    static final int ROWS_PER_PARTITION = 64 * 1024;
+    static final double[] EXACT_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    
+    interface RowHandler {
+        void handleRow(String[] row);
+    }
+    
+    interface FieldHandler {
+        void field(char[] buffer, int offset, int length);
+        
+        void endRow();
+    }
+    
     public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            return;
+        }
+        
+        if (options.benchmark) {
+            Benchmark.run(options.benchmarkRows, options.benchmarkIterations);
+            return;
+        }
+        
+        if (options.streaming) {
+            runStreamingAnalysis(options.inputPath, options.settings);
+            return;
+        }
+        
+        if (options.inputPath != null && options.cache) {
+            runCachedFileAnalysis(options);
+            return;
+        }
+        
+        if (options.inputPath != null) {
+            runParallelFileAnalysis(options.inputPath, options.threads, options.settings);
+            return;
+        }
+        
         Scanner scanner = new Scanner(System.in);
         
         System.out.println("CSV Data Analyzer");
@@ -28,65 +113,409 @@ public class CSVAnalyzer {
         
         String csvData = csvInput.toString().trim();
         
-        String[][] parsedData = parseCSVData(csvData);
-        String[][] cleanedData = validateAndCleanData(parsedData);
+        ColumnarTable table = buildColumnarTable(csvData);
         
         System.out.println("\nFORMATTED DATA TABLE");
-        formatTableOutput(cleanedData);
+        formatTableOutput(table, options.render);
         
         System.out.println("\nDATA ANALYSIS REPORT");
-        generateSummaryReport(cleanedData);
+        generateSummaryReport(table, options.settings);
         
         scanner.close();
     }
     
-    public static String[][] parseCSVData(String csvData) {
-        ArrayList<ArrayList<String>> dataList = new ArrayList<>();
-        ArrayList<String> currentRow = new ArrayList<>();
-        StringBuilder currentField = new StringBuilder();
+    public static void runStreamingAnalysis(String path, AnalysisSettings settings) {
+        System.out.println("CSV Data Analyzer (streaming mode)");
+        
+        SummaryAccumulator summary = new SummaryAccumulator(settings);
+        
+        try (Reader reader = path == null
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            tokenizeCSV(reader, summary);
+        } catch (IOException e) {
+            System.out.println("Error reading input: " + e.getMessage());
+            return;
+        }
+        
+        System.out.println("\nDATA ANALYSIS REPORT");
+        printSummaryReport(summary);
+    }
+    
+    public static void runCachedFileAnalysis(Options options) {
+        System.out.println("CSV Data Analyzer (cached file mode)");
+        
+        Path source = Paths.get(options.inputPath);
+        Path cache = Paths.get(options.cachePath != null ? options.cachePath : options.inputPath + ".csvcache");
+        ColumnarTable table;
+        
+        try {
+            long started = System.nanoTime();
+            TableCache.Key key = TableCache.Key.of(source);
+            table = TableCache.read(cache, key);
+            
+            if (table != null) {
+                System.out.println("Loaded cached table from " + cache + " in "
+                        + (System.nanoTime() - started) / 1_000_000 + " ms");
+            } else {
+                table = buildColumnarTable(source, options.threads);
+                TableCache.write(cache, key, table);
+                System.out.println("Parsed " + source + " and cached it to " + cache + " in "
+                        + (System.nanoTime() - started) / 1_000_000 + " ms");
+            }
+        } catch (IOException | ExecutionException e) {
+            System.out.println("Error reading input: " + e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Analysis interrupted");
+            return;
+        }
+        
+        if (options.render.isPreview() || options.render.outputPath != null) {
+            System.out.println("\nFORMATTED DATA TABLE");
+            formatTableOutput(table, options.render);
+        }
+        
+        System.out.println("\nDATA ANALYSIS REPORT");
+        generateSummaryReport(table, options.settings);
+    }
+    
+    public static ColumnarTable buildColumnarTable(Path path, int threads)
+            throws IOException, InterruptedException, ExecutionException {
+        ColumnarTable table = new ColumnarTable();
+        
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return table;
+            }
+            
+            long[] starts = findChunkStarts(channel, size, threads);
+            for (int i = 0; i < starts.length - 1; i++) {
+                if (starts[i + 1] > starts[i]) {
+                    parseMappedRange(channel.map(FileChannel.MapMode.READ_ONLY, starts[i], starts[i + 1] - starts[i]), table);
+                }
+            }
+        }
+        
+        return table;
+    }
+    
+    public static void runParallelFileAnalysis(String path, int threads, AnalysisSettings settings) {
+        System.out.println("CSV Data Analyzer (parallel file mode, " + threads + " threads)");
+        
+        SummaryAccumulator summary;
+        try {
+            summary = analyzeFileParallel(Paths.get(path), threads, settings);
+        } catch (IOException | ExecutionException e) {
+            System.out.println("Error reading input: " + e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Analysis interrupted");
+            return;
+        }
+        
+        System.out.println("\nDATA ANALYSIS REPORT");
+        printSummaryReport(summary);
+    }
+    
+    public static SummaryAccumulator analyzeFileParallel(Path path, int threads, AnalysisSettings settings)
+            throws IOException, InterruptedException, ExecutionException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return new SummaryAccumulator(settings, 0);
+            }
+            
+            int columnCount = countFirstRecordFields(channel, size);
+            long[] starts = findChunkStarts(channel, size, threads);
+            
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                List<Callable<SummaryAccumulator>> tasks = new ArrayList<>();
+                for (int i = 0; i < starts.length - 1; i++) {
+                    long start = starts[i];
+                    long end = starts[i + 1];
+                    tasks.add(() -> {
+                        SummaryAccumulator partial = new SummaryAccumulator(settings, columnCount);
+                        if (end > start) {
+                            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                            parseMappedRange(buffer, partial);
+                        }
+                        return partial;
+                    });
+                }
+                
+                SummaryAccumulator summary = new SummaryAccumulator(settings, columnCount);
+                for (Future<SummaryAccumulator> partial : pool.invokeAll(tasks)) {
+                    summary.merge(partial.get());
+                }
+                return summary;
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+    
+    private static long[] findChunkStarts(FileChannel channel, long size, int threads)
+            throws IOException, InterruptedException, ExecutionException {
+        long minChunks = (size + MAX_MAPPED_CHUNK - 1) / MAX_MAPPED_CHUNK;
+        long chunkCount = Math.max(minChunks, Math.min(threads, size / MIN_PARALLEL_CHUNK));
+        int chunks = (int) Math.max(1, chunkCount);
+        
+        long[] nominal = new long[chunks + 1];
+        for (int i = 0; i <= chunks; i++) {
+            nominal[i] = size / chunks * i + Math.min(i, size % chunks);
+        }
+        
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, chunks)));
+        try {
+            List<Callable<Boolean>> parityTasks = new ArrayList<>();
+            for (int i = 0; i < chunks; i++) {
+                long start = nominal[i];
+                long end = nominal[i + 1];
+                parityTasks.add(() -> hasOddQuoteCount(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)));
+            }
+            List<Future<Boolean>> parities = pool.invokeAll(parityTasks);
+            
+            boolean[] inQuotesAt = new boolean[chunks];
+            for (int i = 1; i < chunks; i++) {
+                inQuotesAt[i] = inQuotesAt[i - 1] ^ parities.get(i - 1).get();
+            }
+            
+            List<Callable<Long>> boundaryTasks = new ArrayList<>();
+            for (int i = 1; i < chunks; i++) {
+                long from = nominal[i];
+                boolean inQuotes = inQuotesAt[i];
+                boundaryTasks.add(() -> findRecordStart(channel, size, from, inQuotes));
+            }
+            List<Future<Long>> boundaries = pool.invokeAll(boundaryTasks);
+            
+            long[] starts = new long[chunks + 1];
+            for (int i = 1; i < chunks; i++) {
+                starts[i] = Math.max(starts[i - 1], boundaries.get(i - 1).get());
+            }
+            starts[chunks] = size;
+            return starts;
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    private static boolean hasOddQuoteCount(MappedByteBuffer buffer) {
+        boolean odd = false;
+        int limit = buffer.limit();
+        for (int i = 0; i < limit; i++) {
+            if (buffer.get(i) == '"') {
+                odd = !odd;
+            }
+        }
+        return odd;
+    }
+    
+    private static long findRecordStart(FileChannel channel, long size, long from, boolean inQuotes) throws IOException {
+        long position = from;
+        while (position < size) {
+            int window = (int) Math.min(BOUNDARY_SCAN_WINDOW, size - position);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, window);
+            for (int i = 0; i < window; i++) {
+                byte b = buffer.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if ((b == '\n' || b == '\r') && !inQuotes) {
+                    return position + i + 1;
+                }
+            }
+            position += window;
+        }
+        return size;
+    }
+    
+    private static int countFirstRecordFields(FileChannel channel, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, MAX_MAPPED_CHUNK));
+        int[] fieldCount = {0};
+        parseMappedRange(buffer, new FieldHandler() {
+            public void field(char[] chars, int offset, int length) {
+                fieldCount[0]++;
+            }
+            
+            public void endRow() {
+            }
+        }, 1);
+        return fieldCount[0];
+    }
+    
+    static long parseMappedRange(MappedByteBuffer buffer, FieldHandler handler) {
+        return parseMappedRange(buffer, handler, Long.MAX_VALUE);
+    }
+    
+    private static long parseMappedRange(MappedByteBuffer buffer, FieldHandler handler, long maxRows) {
+        char[] field = new char[256];
+        int fieldLength = 0;
+        boolean asciiOnly = true;
+        boolean rowStarted = false;
         boolean inQuotes = false;
+        long rowCount = 0;
+        int limit = buffer.limit();
         
-        for (int i = 0; i < csvData.length(); i++) {
-            char c = csvData.charAt(i);
+        for (int i = 0; i < limit && rowCount < maxRows; i++) {
+            byte b = buffer.get(i);
             
-            if (c == '"') {
+            if (b == '"') {
                 inQuotes = !inQuotes;
                 continue;
             }
             
-            if (c == ',' && !inQuotes) {
-                currentRow.add(currentField.toString());
-                currentField.setLength(0);
+            if (b == ',' && !inQuotes) {
+                fieldLength = emitMappedField(handler, field, fieldLength, asciiOnly);
+                asciiOnly = true;
+                rowStarted = true;
                 continue;
             }
             
-            if ((c == '\n' || c == '\r') && !inQuotes) {
-                if (currentField.length() > 0 || !currentRow.isEmpty()) {
-                    currentRow.add(currentField.toString());
-                    dataList.add(new ArrayList<>(currentRow));
-                    currentRow.clear();
-                    currentField.setLength(0);
+            if ((b == '\n' || b == '\r') && !inQuotes) {
+                if (fieldLength > 0 || rowStarted) {
+                    fieldLength = emitMappedField(handler, field, fieldLength, asciiOnly);
+                    handler.endRow();
+                    rowCount++;
+                    asciiOnly = true;
+                    rowStarted = false;
                 }
                 continue;
             }
             
-            currentField.append(c);
+            if (fieldLength == field.length) {
+                field = Arrays.copyOf(field, field.length * 2);
+            }
+            field[fieldLength++] = (char) (b & 0xFF);
+            asciiOnly &= b >= 0;
+        }
+        
+        if (rowCount < maxRows) {
+            if (fieldLength > 0) {
+                emitMappedField(handler, field, fieldLength, asciiOnly);
+                rowStarted = true;
+            }
+            
+            if (rowStarted) {
+                handler.endRow();
+                rowCount++;
+            }
+        }
+        
+        return rowCount;
+    }
+    
+    private static int emitMappedField(FieldHandler handler, char[] field, int length, boolean asciiOnly) {
+        if (asciiOnly) {
+            handler.field(field, 0, length);
+            return 0;
+        }
+        
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) field[i];
+        }
+        char[] decoded = new String(bytes, StandardCharsets.UTF_8).toCharArray();
+        handler.field(decoded, 0, decoded.length);
+        return 0;
+    }
+    
+    public static ColumnarTable buildColumnarTable(String csvData) {
+        ColumnarTable table = new ColumnarTable();
+        
+        try {
+            tokenizeCSV(new StringReader(csvData), table);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        
+        return table;
+    }
+    
+    public static String[][] parseCSVData(String csvData) {
+        ArrayList<String[]> dataList = new ArrayList<>();
+        
+        try {
+            streamCSVData(new StringReader(csvData), dataList::add);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
         }
         
-        if (currentField.length() > 0) {
-            currentRow.add(currentField.toString());
+        return dataList.toArray(new String[0][]);
+    }
+    
+    public static long streamCSVData(Reader reader, RowHandler handler) throws IOException {
+        ArrayList<String> currentRow = new ArrayList<>();
+        
+        return tokenizeCSV(reader, new FieldHandler() {
+            public void field(char[] buffer, int offset, int length) {
+                currentRow.add(new String(buffer, offset, length));
+            }
+            
+            public void endRow() {
+                handler.handleRow(currentRow.toArray(new String[0]));
+                currentRow.clear();
+            }
+        });
+    }
+    
+    public static long tokenizeCSV(Reader reader, FieldHandler handler) throws IOException {
+        char[] buffer = new char[STREAM_BUFFER_SIZE];
+        char[] field = new char[256];
+        int fieldLength = 0;
+        boolean rowStarted = false;
+        boolean inQuotes = false;
+        long rowCount = 0;
+        int read;
+        
+        while ((read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                
+                if (c == '"') {
+                    inQuotes = !inQuotes;
+                    continue;
+                }
+                
+                if (c == ',' && !inQuotes) {
+                    handler.field(field, 0, fieldLength);
+                    fieldLength = 0;
+                    rowStarted = true;
+                    continue;
+                }
+                
+                if ((c == '\n' || c == '\r') && !inQuotes) {
+                    if (fieldLength > 0 || rowStarted) {
+                        handler.field(field, 0, fieldLength);
+                        handler.endRow();
+                        rowCount++;
+                        fieldLength = 0;
+                        rowStarted = false;
+                    }
+                    continue;
+                }
+                
+                if (fieldLength == field.length) {
+                    field = Arrays.copyOf(field, field.length * 2);
+                }
+                field[fieldLength++] = c;
+            }
         }
         
-        if (!currentRow.isEmpty()) {
-            dataList.add(currentRow);
+        if (fieldLength > 0) {
+            handler.field(field, 0, fieldLength);
+            rowStarted = true;
         }
         
-        String[][] result = new String[dataList.size()][];
-        for (int i = 0; i < dataList.size(); i++) {
-            result[i] = dataList.get(i).toArray(new String[0]);
+        if (rowStarted) {
+            handler.endRow();
+            rowCount++;
         }
         
-        return result;
+        return rowCount;
     }
     
     public static String[][] validateAndCleanData(String[][] data) {
@@ -96,31 +525,38 @@ public class CSVAnalyzer {
         
         for (int i = 0; i < data.length; i++) {
             for (int j = 0; j < data[i].length; j++) {
-                String field = data[i][j].trim();
-                
-                if (field.isEmpty()) {
-                    cleanedData[i][j] = "[MISSING]";
-                } else if (isNumericField(field)) {
-                    cleanedData[i][j] = formatNumeric(field);
-                } else {
-                    cleanedData[i][j] = field;
-                }
+                cleanedData[i][j] = cleanField(data[i][j]);
             }
         }
         
         return cleanedData;
     }
     
+    private static String cleanField(String rawField) {
+        String field = rawField.trim();
+        
+        if (field.isEmpty()) {
+            return MISSING;
+        } else if (isNumericField(field)) {
+            return formatNumeric(field);
+        }
+        return field;
+    }
+    
     private static boolean isNumericField(String field) {
-        if (field.isEmpty()) return false;
+        return isNumericField(field.toCharArray(), 0, field.length());
+    }
+    
+    static boolean isNumericField(char[] buffer, int offset, int length) {
+        if (length == 0) return false;
         
         boolean hasDecimal = false;
         boolean hasDigit = false;
         
-        for (int i = 0; i < field.length(); i++) {
-            char c = field.charAt(i);
+        for (int i = 0; i < length; i++) {
+            char c = buffer[offset + i];
             
-            if (Character.isDigit(c)) {
+            if (c >= '0' && c <= '9') {
                 hasDigit = true;
             } else if (c == '.' && !hasDecimal) {
                 hasDecimal = true;
@@ -134,30 +570,153 @@ public class CSVAnalyzer {
         return hasDigit;
     }
     
+    static double parseNumber(char[] buffer, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = buffer[i] == '-';
+        if (negative) {
+            i++;
+        }
+        
+        long mantissa = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+        
+        for (; i < end; i++) {
+            char c = buffer[i];
+            if (c == '.') {
+                inFraction = true;
+                continue;
+            }
+            mantissa = mantissa * 10 + (c - '0');
+            if (mantissa != 0) {
+                significantDigits++;
+            }
+            if (inFraction) {
+                fractionDigits++;
+            }
+            if (significantDigits > 15 || fractionDigits >= EXACT_POWERS_OF_TEN.length) {
+                return Double.parseDouble(new String(buffer, offset, length));
+            }
+        }
+        
+        double value = mantissa / EXACT_POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+    
+    static boolean isLongField(char[] buffer, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (buffer[offset + i] == '.') {
+                return false;
+            }
+        }
+        return length <= 18;
+    }
+    
+    static long parseLong(char[] buffer, int offset, int length) {
+        int i = offset;
+        boolean negative = buffer[i] == '-';
+        if (negative) {
+            i++;
+        }
+        
+        long value = 0;
+        for (; i < offset + length; i++) {
+            value = value * 10 + (buffer[i] - '0');
+        }
+        return negative ? -value : value;
+    }
+    
+    static int trimStart(char[] buffer, int start, int end) {
+        while (start < end && buffer[start] <= ' ') {
+            start++;
+        }
+        return start;
+    }
+    
+    static int trimEnd(char[] buffer, int start, int end) {
+        while (end > start && buffer[end - 1] <= ' ') {
+            end--;
+        }
+        return end;
+    }
+    
     private static String formatNumeric(String field) {
         try {
-            double value = Double.parseDouble(field);
-            if (value == (int) value) {
-                return String.valueOf((int) value);
-            } else {
-                return String.format("%.2f", value);
-            }
+            return formatNumber(Double.parseDouble(field));
         } catch (NumberFormatException e) {
             return field;
         }
     }
     
+    private static String formatNumber(double value) {
+        if (value == (long) value) {
+            return String.valueOf((long) value);
+        } else {
+            return String.format("%.2f", value);
+        }
+    }
+    
+    static int numberWidth(double value) {
+        if (value == (long) value) {
+            return longWidth((long) value);
+        }
+        
+        double magnitude = Math.abs(value);
+        long whole = (long) magnitude;
+        if (magnitude >= 1e15 || longWidth(whole + 1) > longWidth(whole)) {
+            return formatNumber(value).length();
+        }
+        return (value < 0 ? 1 : 0) + longWidth(whole) + 3;
+    }
+    
+    static int longWidth(long value) {
+        if (value == Long.MIN_VALUE) {
+            return 20;
+        }
+        
+        int width = value < 0 ? 2 : 1;
+        for (long remaining = Math.abs(value); remaining >= 10; remaining /= 10) {
+            width++;
+        }
+        return width;
+    }
+    
+    public static void formatTableOutput(ColumnarTable table) {
+        formatTableOutput(table, new RenderSettings());
+    }
+    
+    public static void formatTableOutput(ColumnarTable table, RenderSettings settings) {
+        if (table.rowCount == 0) return;
+        
+        try {
+            if (settings.outputPath == null) {
+                Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+                new TableRenderer(out).render(table, settings);
+                out.flush();
+            } else {
+                try (Writer out = Files.newBufferedWriter(Paths.get(settings.outputPath), StandardCharsets.UTF_8)) {
+                    new TableRenderer(out).render(table, settings);
+                }
+                System.out.println("Table written to " + settings.outputPath);
+            }
+        } catch (IOException e) {
+            System.out.println("Error writing table: " + e.getMessage());
+        }
+    }
+    
     public static void formatTableOutput(String[][] data) {
         if (data.length == 0) return;
         
         int[] columnWidths = calculateColumnWidths(data);
         
-        for (int i = 0; i < data.length; i++) {
-            for (int j = 0; j < data[i].length; j++) {
-                String value = data[i][j];
-                System.out.print(padRight(value, columnWidths[j]) + "  ");
-            }
-            System.out.println();
+        try {
+            Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+            new TableRenderer(out).render(data, columnWidths);
+            out.flush();
+        } catch (IOException e) {
+            System.out.println("Error writing table: " + e.getMessage());
         }
     }
     
@@ -179,73 +738,89 @@ public class CSVAnalyzer {
         return widths;
     }
     
-    private static String padRight(String s, int length) {
-        if (s.length() >= length) {
-            return s;
+    public static void generateSummaryReport(String[][] data) {
+        generateSummaryReport(data, new AnalysisSettings());
+    }
+    
+    public static void generateSummaryReport(ColumnarTable table, AnalysisSettings settings) {
+        printSummaryReport(table.summarize(settings));
+    }
+    
+    public static void generateSummaryReport(String[][] data, AnalysisSettings settings) {
+        int columnCount = data.length == 0 ? 0 : data[0].length;
+        int partitions = Math.max(1, (data.length + ROWS_PER_PARTITION - 1) / ROWS_PER_PARTITION);
+        SummaryAccumulator[] partials = new SummaryAccumulator[partitions];
+        
+        forEachInParallel(settings.parallelism, partitions, part -> {
+            SummaryAccumulator partial = new SummaryAccumulator(settings, columnCount);
+            int end = (int) Math.min(data.length, (long) (part + 1) * ROWS_PER_PARTITION);
+            for (int row = part * ROWS_PER_PARTITION; row < end; row++) {
+                partial.addRow(data[row]);
+            }
+            partials[part] = partial;
+        });
+        
+        SummaryAccumulator summary = new SummaryAccumulator(settings, columnCount);
+        for (SummaryAccumulator partial : partials) {
+            summary.merge(partial);
+        }
+        printSummaryReport(summary);
+    }
+    
+    static void forEachInParallel(int parallelism, int taskCount, IntConsumer task) {
+        if (parallelism <= 1 || taskCount <= 1) {
+            for (int i = 0; i < taskCount; i++) {
+                task.accept(i);
+            }
+            return;
+        }
+        
+        ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, taskCount));
+        try {
+            List<ForkJoinTask<?>> submitted = new ArrayList<>();
+            for (int i = 0; i < taskCount; i++) {
+                int index = i;
+                submitted.add(pool.submit(() -> task.accept(index)));
+            }
+            for (ForkJoinTask<?> pending : submitted) {
+                pending.join();
+            }
+        } finally {
+            pool.shutdown();
         }
-        return s + " ".repeat(length - s.length());
     }
     
-    public static void generateSummaryReport(String[][] data) {
-        if (data.length == 0) {
+    public static void printSummaryReport(SummaryAccumulator summary) {
+        if (summary.totalRecords == 0) {
             System.out.println("No data to analyze.");
             return;
         }
         
-        int totalRecords = data.length;
-        int totalFields = totalRecords * data[0].length;
-        int missingFields = 0;
+        long totalRecords = summary.totalRecords;
+        long totalFields = totalRecords * summary.columns.length;
+        long missingFields = 0;
         
         System.out.println("Total records processed: " + totalRecords);
         System.out.println("Total fields: " + totalFields);
         System.out.println("COLUMN ANALYSIS:");
         
-        for (int col = 0; col < data[0].length; col++) {
-            System.out.println("Column " + (col + 1) + ":");
-            
-            ArrayList<String> values = new ArrayList<>();
-            int colMissing = 0;
-            boolean isNumeric = true;
-            
-            for (int row = 0; row < data.length; row++) {
-                if (col < data[row].length) {
-                    String value = data[row][col];
-                    if (value.equals("[MISSING]")) {
-                        colMissing++;
-                        missingFields++;
-                    } else {
-                        values.add(value);
-                        if (isNumeric && !isNumericField(value)) {
-                            isNumeric = false;
-                        }
-                    }
-                }
-            }
+        for (int col = 0; col < summary.columns.length; col++) {
+            ColumnStats stats = summary.columns[col];
+            missingFields += stats.missing;
             
-            System.out.println("  Missing values: " + colMissing);
-            System.out.println("  Unique values: " + countUniqueValues(values));
+            System.out.println("Column " + (col + 1) + ":");
+            System.out.println("  Missing values: " + stats.missing);
+            System.out.println("  Unique values: " + stats.distinct.describe());
             
-            if (isNumeric && !values.isEmpty()) {
-                double[] numericValues = new double[values.size()];
-                for (int i = 0; i < values.size(); i++) {
-                    numericValues[i] = Double.parseDouble(values.get(i));
-                }
-                
-                double min = numericValues[0];
-                double max = numericValues[0];
-                double sum = 0;
-                
-                for (double value : numericValues) {
-                    min = Math.min(min, value);
-                    max = Math.max(max, value);
-                    sum += value;
-                }
-                
-                double average = sum / numericValues.length;
-                
-                System.out.println("  Min: " + min);
-                System.out.println("  Max: " + max);
-                System.out.println("  Average: " + String.format("%.2f", average));
+            if (stats.numeric && stats.count > 0) {
+                System.out.println("  Min: " + stats.min);
+                System.out.println("  Max: " + stats.max);
+                System.out.println("  Average: " + String.format("%.2f", stats.mean));
+                System.out.println("  Std deviation: " + String.format("%.2f", stats.standardDeviation()));
+                System.out.println("  Median: " + stats.quantiles.quantile(0.5));
+                System.out.println("  P95: " + stats.quantiles.quantile(0.95));
+                System.out.println("  P99: " + stats.quantiles.quantile(0.99));
+                printHistogram(stats.histogram);
             }
         }
         
@@ -255,13 +830,1725 @@ public class CSVAnalyzer {
         System.out.println("Data completeness: " + String.format("%.1f", completeness) + "%");
     }
     
-    private static int countUniqueValues(ArrayList<String> values) {
-        ArrayList<String> unique = new ArrayList<>();
-        for (String value : values) {
-            if (!unique.contains(value)) {
-                unique.add(value);
+    private static void printHistogram(Histogram histogram) {
+        System.out.println("  Histogram:");
+        
+        long largest = 0;
+        for (long binCount : histogram.counts) {
+            largest = Math.max(largest, binCount);
+        }
+        
+        int first = 0;
+        int last = histogram.counts.length - 1;
+        while (histogram.counts[first] == 0) first++;
+        while (histogram.counts[last] == 0) last--;
+        
+        for (int bin = first; bin <= last; bin++) {
+            String bar = "#".repeat((int) Math.round(30.0 * histogram.counts[bin] / largest));
+            System.out.println("    [" + formatBound(histogram.lowerBound(bin)) + ", "
+                    + formatBound(histogram.lowerBound(bin + 1)) + ") "
+                    + (bar.isEmpty() ? "" : bar + " ") + histogram.counts[bin]);
+        }
+    }
+    
+    private static String formatBound(double value) {
+        return value == (long) value ? String.valueOf((long) value) : String.valueOf(value);
+    }
+    
+    static class SummaryAccumulator implements FieldHandler {
+        final AnalysisSettings settings;
+        long totalRecords;
+        ColumnStats[] columns;
+        private boolean columnsFixed;
+        private int currentColumn;
+        
+        SummaryAccumulator(AnalysisSettings settings) {
+            this.settings = settings;
+        }
+        
+        SummaryAccumulator(AnalysisSettings settings, int columnCount) {
+            this(settings);
+            initColumns(columnCount);
+        }
+        
+        private void initColumns(int columnCount) {
+            columns = new ColumnStats[columnCount];
+            for (int col = 0; col < columnCount; col++) {
+                columns[col] = new ColumnStats(settings);
+            }
+            columnsFixed = true;
+        }
+        
+        void addRow(String[] cleanedRow) {
+            if (columns == null) {
+                initColumns(cleanedRow.length);
+            }
+            
+            totalRecords++;
+            for (int col = 0; col < columns.length; col++) {
+                columns[col].add(col < cleanedRow.length ? cleanedRow[col] : null);
+            }
+        }
+        
+        public void field(char[] buffer, int offset, int length) {
+            if (!columnsFixed && (columns == null || currentColumn == columns.length)) {
+                columns = columns == null ? new ColumnStats[1] : Arrays.copyOf(columns, columns.length + 1);
+                columns[columns.length - 1] = new ColumnStats(settings);
+            }
+            if (currentColumn < columns.length) {
+                columns[currentColumn].addField(buffer, offset, length);
+            }
+            currentColumn++;
+        }
+        
+        public void endRow() {
+            for (int col = currentColumn; col < columns.length; col++) {
+                columns[col].missing++;
+            }
+            currentColumn = 0;
+            columnsFixed = true;
+            totalRecords++;
+        }
+        
+        void merge(SummaryAccumulator other) {
+            if (other.columns == null) {
+                return;
+            }
+            if (columns == null) {
+                initColumns(other.columns.length);
+            }
+            
+            totalRecords += other.totalRecords;
+            for (int col = 0; col < columns.length; col++) {
+                columns[col].merge(other.columns[col]);
+            }
+        }
+    }
+    
+    static class ColumnStats {
+        long missing;
+        long count;
+        boolean numeric = true;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double mean;
+        double squaredDeviations;
+        final DistinctCounter distinct;
+        final QuantileSketch quantiles = new QuantileSketch();
+        final Histogram histogram;
+        
+        ColumnStats(AnalysisSettings settings) {
+            this.distinct = settings.newDistinctCounter();
+            this.histogram = new Histogram(settings.histogramBins);
+        }
+        
+        void add(String value) {
+            if (value == null || value.equals(MISSING)) {
+                missing++;
+                return;
+            }
+            
+            count++;
+            distinct.add(value);
+            
+            if (numeric) {
+                if (isNumericField(value)) {
+                    addNumericValue(Double.parseDouble(value));
+                } else {
+                    numeric = false;
+                }
+            }
+        }
+        
+        void addField(char[] buffer, int offset, int length) {
+            int start = trimStart(buffer, offset, offset + length);
+            int fieldLength = trimEnd(buffer, start, offset + length) - start;
+            
+            if (fieldLength == 0) {
+                missing++;
+                return;
+            }
+            
+            count++;
+            if (isNumericField(buffer, start, fieldLength)) {
+                double value = parseNumber(buffer, start, fieldLength);
+                distinct.addNumber(value);
+                if (numeric) {
+                    addNumericValue(value);
+                }
+            } else {
+                distinct.addText(buffer, start, fieldLength);
+                numeric = false;
+            }
+        }
+        
+        void addNumber(double value) {
+            count++;
+            distinct.addNumber(value);
+            addNumericValue(value);
+        }
+        
+        private void addNumericValue(double value) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            
+            double delta = value - mean;
+            mean += delta / count;
+            squaredDeviations += delta * (value - mean);
+            
+            quantiles.add(value);
+            histogram.add(value);
+        }
+        
+        double standardDeviation() {
+            return count > 1 ? Math.sqrt(squaredDeviations / (count - 1)) : 0;
+        }
+        
+        void merge(ColumnStats other) {
+            if (other.count > 0) {
+                long total = count + other.count;
+                double delta = other.mean - mean;
+                mean += delta * other.count / total;
+                squaredDeviations += other.squaredDeviations + delta * delta * count * other.count / total;
+            }
+            
+            missing += other.missing;
+            count += other.count;
+            numeric = numeric && other.numeric;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            distinct.merge(other.distinct);
+            quantiles.merge(other.quantiles);
+            histogram.merge(other.histogram);
+        }
+    }
+    
+    static class AnalysisSettings {
+        String distinctMethod = "auto";
+        double distinctError = 0.01;
+        int distinctExactLimit = 100_000;
+        int histogramBins = 10;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        
+        DistinctCounter newDistinctCounter() {
+            switch (distinctMethod) {
+                case "exact": return new DistinctCounter(Integer.MAX_VALUE, distinctError);
+                case "approx": return new DistinctCounter(0, distinctError);
+                default: return new DistinctCounter(distinctExactLimit, distinctError);
+            }
+        }
+    }
+    
+    static class QuantileSketch {
+        private static final int K = 200;
+        
+        private final ArrayList<double[]> levels = new ArrayList<>();
+        private int[] sizes = new int[0];
+        private int[] capacities = new int[0];
+        private long randomState = 0x2545f4914f6cdd1dL;
+        
+        void add(double value) {
+            if (levels.isEmpty()) {
+                addLevel();
+            }
+            append(0, value);
+            for (int level = 0; sizes[level] >= capacities[level]; level++) {
+                compact(level);
+            }
+        }
+        
+        void merge(QuantileSketch other) {
+            while (levels.size() < other.levels.size()) {
+                addLevel();
+            }
+            for (int level = 0; level < other.levels.size(); level++) {
+                double[] items = other.levels.get(level);
+                for (int i = 0; i < other.sizes[level]; i++) {
+                    append(level, items[i]);
+                }
+            }
+            compress();
+        }
+        
+        double quantile(double fraction) {
+            int itemCount = 0;
+            for (int size : sizes) {
+                itemCount += size;
+            }
+            
+            double[] values = new double[itemCount];
+            long[] weights = new long[itemCount];
+            long totalWeight = 0;
+            int index = 0;
+            for (int level = 0; level < levels.size(); level++) {
+                for (int i = 0; i < sizes[level]; i++) {
+                    values[index] = levels.get(level)[i];
+                    weights[index] = 1L << level;
+                    index++;
+                }
+                totalWeight += (long) sizes[level] << level;
+            }
+            
+            Integer[] order = new Integer[itemCount];
+            for (int i = 0; i < itemCount; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+            
+            double target = fraction * totalWeight;
+            long cumulative = 0;
+            for (Integer item : order) {
+                cumulative += weights[item];
+                if (cumulative >= target) {
+                    return values[item];
+                }
+            }
+            return values[order[itemCount - 1]];
+        }
+        
+        private void addLevel() {
+            levels.add(new double[K]);
+            sizes = Arrays.copyOf(sizes, levels.size());
+            capacities = new int[levels.size()];
+            double capacity = K;
+            for (int level = levels.size() - 1; level >= 0; level--) {
+                capacities[level] = Math.max(2, (int) Math.ceil(capacity));
+                capacity *= 2.0 / 3.0;
+            }
+        }
+        
+        private void append(int level, double value) {
+            double[] items = levels.get(level);
+            if (sizes[level] == items.length) {
+                items = Arrays.copyOf(items, items.length * 2);
+                levels.set(level, items);
+            }
+            items[sizes[level]++] = value;
+        }
+        
+        private void compress() {
+            for (int level = 0; level < levels.size(); level++) {
+                if (sizes[level] >= capacities[level]) {
+                    compact(level);
+                }
+            }
+        }
+        
+        private void compact(int level) {
+            if (level == levels.size() - 1) {
+                addLevel();
+            }
+            
+            double[] items = levels.get(level);
+            int size = sizes[level];
+            Arrays.sort(items, 0, size);
+            
+            int kept = size % 2;
+            int offset = kept + (nextRandomBit() ? 1 : 0);
+            for (int i = offset; i < size; i += 2) {
+                append(level + 1, items[i]);
+            }
+            sizes[level] = kept;
+        }
+        
+        private boolean nextRandomBit() {
+            randomState ^= randomState << 13;
+            randomState ^= randomState >>> 7;
+            randomState ^= randomState << 17;
+            return (randomState & 1) != 0;
+        }
+    }
+    
+    static class Histogram {
+        private final int binCount;
+        long[] counts;
+        double binWidth;
+        long firstBin;
+        double minValue = Double.POSITIVE_INFINITY;
+        double maxValue = Double.NEGATIVE_INFINITY;
+        
+        Histogram(int binCount) {
+            if (binCount < 2) {
+                throw new IllegalArgumentException("A histogram needs at least 2 bins");
+            }
+            this.binCount = binCount;
+            this.counts = new long[binCount];
+        }
+        
+        void add(double value) {
+            if (minValue > maxValue) {
+                binWidth = value == 0 ? 1.0 / 1024 : Math.scalb(1.0, Math.getExponent(value) - 3);
+                firstBin = (long) Math.floor(value / binWidth);
+            } else if (value < minValue || value > maxValue) {
+                rebin(Math.min(minValue, value), Math.max(maxValue, value), binWidth);
+            }
+            
+            minValue = Math.min(minValue, value);
+            maxValue = Math.max(maxValue, value);
+            counts[(int) ((long) Math.floor(value / binWidth) - firstBin)]++;
+        }
+        
+        void merge(Histogram other) {
+            if (other.minValue > other.maxValue) {
+                return;
+            }
+            if (minValue > maxValue) {
+                counts = other.counts.clone();
+                binWidth = other.binWidth;
+                firstBin = other.firstBin;
+                minValue = other.minValue;
+                maxValue = other.maxValue;
+                return;
+            }
+            
+            double low = Math.min(minValue, other.minValue);
+            double high = Math.max(maxValue, other.maxValue);
+            rebin(low, high, Math.max(binWidth, other.binWidth));
+            for (int bin = 0; bin < other.counts.length; bin++) {
+                if (other.counts[bin] > 0) {
+                    double lower = (other.firstBin + bin) * other.binWidth;
+                    counts[(int) ((long) Math.floor(lower / binWidth) - firstBin)] += other.counts[bin];
+                }
+            }
+            minValue = low;
+            maxValue = high;
+        }
+        
+        double lowerBound(int bin) {
+            return (firstBin + bin) * binWidth;
+        }
+        
+        private void rebin(double low, double high, double width) {
+            while ((long) Math.floor(high / width) - (long) Math.floor(low / width) >= binCount) {
+                width *= 2;
+            }
+            if (width == binWidth && (long) Math.floor(low / width) >= firstBin
+                    && (long) Math.floor(high / width) < firstBin + binCount) {
+                return;
+            }
+            
+            long newFirstBin = (long) Math.floor(low / width);
+            long[] rebinned = new long[binCount];
+            for (int bin = 0; bin < counts.length; bin++) {
+                if (counts[bin] > 0) {
+                    double lower = (firstBin + bin) * binWidth;
+                    rebinned[(int) ((long) Math.floor(lower / width) - newFirstBin)] += counts[bin];
+                }
+            }
+            counts = rebinned;
+            binWidth = width;
+            firstBin = newFirstBin;
+        }
+    }
+    
+    static class DistinctCounter {
+        private final int exactLimit;
+        private final double error;
+        private TextDictionary exactText = new TextDictionary();
+        private LongHashSet exactNumbers = new LongHashSet();
+        private HyperLogLog sketch;
+        
+        DistinctCounter(int exactLimit, double error) {
+            this.exactLimit = exactLimit;
+            this.error = error;
+            if (exactLimit == 0) {
+                switchToSketch();
+            }
+        }
+        
+        void add(String value) {
+            if (sketch != null) {
+                sketch.addHash(HyperLogLog.hash64(value));
+                return;
+            }
+            exactText.add(value);
+            checkExactLimit();
+        }
+        
+        void addText(char[] buffer, int offset, int length) {
+            if (sketch != null) {
+                sketch.addHash(HyperLogLog.hash64(buffer, offset, length));
+                return;
+            }
+            exactText.add(buffer, offset, length);
+            checkExactLimit();
+        }
+        
+        void addNumber(double value) {
+            long bits = Double.doubleToLongBits(value + 0.0);
+            if (sketch != null) {
+                sketch.addHash(HyperLogLog.mix64(bits));
+                return;
+            }
+            exactNumbers.add(bits);
+            checkExactLimit();
+        }
+        
+        void merge(DistinctCounter other) {
+            if (sketch == null && other.sketch == null) {
+                for (int code = 0; code < other.exactText.size(); code++) {
+                    exactText.add(other.exactText.get(code));
+                }
+                other.exactNumbers.forEach(exactNumbers::add);
+                checkExactLimit();
+                return;
+            }
+            
+            if (sketch == null) {
+                switchToSketch();
+            }
+            if (other.sketch != null) {
+                sketch.merge(other.sketch);
+            } else {
+                other.addExactValuesTo(sketch);
+            }
+        }
+        
+        long count() {
+            return sketch != null ? sketch.estimate() : exactText.size() + exactNumbers.size();
+        }
+        
+        String describe() {
+            if (sketch == null) {
+                return count() + " (exact)";
+            }
+            return "~" + count() + " (HyperLogLog, +/-" + String.format("%.2f", sketch.standardError() * 100) + "% std. error)";
+        }
+        
+        private void checkExactLimit() {
+            if (exactText.size() + exactNumbers.size() > exactLimit) {
+                switchToSketch();
+            }
+        }
+        
+        private void switchToSketch() {
+            sketch = new HyperLogLog(error);
+            addExactValuesTo(sketch);
+            exactText = null;
+            exactNumbers = null;
+        }
+        
+        private void addExactValuesTo(HyperLogLog target) {
+            for (int code = 0; code < exactText.size(); code++) {
+                target.addHash(HyperLogLog.hash64(exactText.get(code)));
+            }
+            exactNumbers.forEach(bits -> target.addHash(HyperLogLog.mix64(bits)));
+        }
+    }
+    
+    static class HyperLogLog {
+        private final int precision;
+        private final byte[] registers;
+        
+        HyperLogLog(double targetError) {
+            int bits = (int) Math.ceil(Math.log(Math.pow(1.04 / targetError, 2)) / Math.log(2));
+            precision = Math.max(4, Math.min(18, bits));
+            registers = new byte[1 << precision];
+        }
+        
+        void addHash(long hash) {
+            int index = (int) (hash >>> (64 - precision));
+            int rank = Math.min(Long.numberOfLeadingZeros(hash << precision), 64 - precision) + 1;
+            if (rank > registers[index]) {
+                registers[index] = (byte) rank;
+            }
+        }
+        
+        void merge(HyperLogLog other) {
+            if (other.precision != precision) {
+                throw new IllegalArgumentException("Cannot merge sketches with different precision");
+            }
+            for (int i = 0; i < registers.length; i++) {
+                registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+            }
+        }
+        
+        long estimate() {
+            int m = registers.length;
+            double inverseSum = 0;
+            int zeros = 0;
+            for (byte register : registers) {
+                inverseSum += 1.0 / (1L << register);
+                if (register == 0) {
+                    zeros++;
+                }
+            }
+            
+            double estimate = alpha(m) * m * m / inverseSum;
+            if (estimate <= 2.5 * m && zeros > 0) {
+                estimate = m * Math.log((double) m / zeros);
+            }
+            return Math.round(estimate);
+        }
+        
+        double standardError() {
+            return 1.04 / Math.sqrt(registers.length);
+        }
+        
+        private static double alpha(int m) {
+            switch (m) {
+                case 16: return 0.673;
+                case 32: return 0.697;
+                case 64: return 0.709;
+            }
+            return 0.7213 / (1 + 1.079 / m);
+        }
+        
+        static long hash64(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+            }
+            return mix64(hash);
+        }
+        
+        static long hash64(char[] buffer, int offset, int length) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = offset; i < offset + length; i++) {
+                hash = (hash ^ buffer[i]) * 0x100000001b3L;
+            }
+            return mix64(hash);
+        }
+        
+        static long mix64(long hash) {
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+    
+    static class ColumnarTable implements FieldHandler {
+        Column[] columns = new Column[0];
+        int rowCount;
+        private int currentColumn;
+        
+        public void field(char[] buffer, int offset, int length) {
+            if (rowCount == 0) {
+                columns = Arrays.copyOf(columns, columns.length + 1);
+                columns[columns.length - 1] = new Column();
+            }
+            if (currentColumn < columns.length) {
+                columns[currentColumn].add(buffer, offset, length);
+            }
+            currentColumn++;
+        }
+        
+        public void endRow() {
+            for (int col = currentColumn; col < columns.length; col++) {
+                columns[col].addMissing();
+            }
+            currentColumn = 0;
+            rowCount++;
+        }
+        
+        int[] columnWidths() {
+            int[] widths = new int[columns.length];
+            for (int col = 0; col < columns.length; col++) {
+                widths[col] = columns[col].displayWidth;
+            }
+            return widths;
+        }
+        
+        SummaryAccumulator summarize(AnalysisSettings settings) {
+            SummaryAccumulator summary = new SummaryAccumulator(settings, columns.length);
+            summary.totalRecords = rowCount;
+            forEachInParallel(settings.parallelism, summary.columns.length,
+                    col -> columns[col].summarizeInto(summary.columns[col]));
+            return summary;
+        }
+    }
+    
+    static class Column {
+        static final byte LONG = 0;
+        static final byte DOUBLE = 1;
+        static final byte TEXT = 2;
+        
+        byte type = LONG;
+        int size;
+        long[] nullBits = new long[1];
+        long[] longValues = new long[64];
+        double[] doubleValues;
+        int[] codes;
+        TextDictionary dictionary;
+        int displayWidth;
+        
+        void add(char[] buffer, int offset, int length) {
+            ensureCapacity(size + 1);
+            int start = trimStart(buffer, offset, offset + length);
+            int fieldLength = trimEnd(buffer, start, offset + length) - start;
+            
+            if (fieldLength == 0) {
+                nullBits[size >>> 6] |= 1L << size;
+                displayWidth = Math.max(displayWidth, MISSING.length());
+            } else if (isNumericField(buffer, start, fieldLength)) {
+                addNumber(buffer, start, fieldLength);
+            } else {
+                if (type != TEXT) {
+                    convertToText();
+                }
+                codes[size] = dictionary.add(buffer, start, fieldLength);
+                displayWidth = Math.max(displayWidth, fieldLength);
+            }
+            size++;
+        }
+        
+        void addMissing() {
+            ensureCapacity(size + 1);
+            nullBits[size >>> 6] |= 1L << size;
+            displayWidth = Math.max(displayWidth, MISSING.length());
+            size++;
+        }
+        
+        boolean isNull(int row) {
+            return (nullBits[row >>> 6] & (1L << row)) != 0;
+        }
+        
+        String displayValue(int row) {
+            if (isNull(row)) {
+                return MISSING;
+            }
+            switch (type) {
+                case LONG: return String.valueOf(longValues[row]);
+                case DOUBLE: return formatNumber(doubleValues[row]);
+                default: return dictionary.get(codes[row]);
+            }
+        }
+        
+        void summarizeInto(ColumnStats stats) {
+            if (type == TEXT) {
+                stats.numeric = false;
+                for (int row = 0; row < size; row++) {
+                    if (isNull(row)) {
+                        stats.missing++;
+                    } else {
+                        stats.count++;
+                    }
+                }
+                for (int code = 0; code < dictionary.size(); code++) {
+                    stats.distinct.add(dictionary.get(code));
+                }
+                return;
+            }
+            
+            for (int row = 0; row < size; row++) {
+                if (isNull(row)) {
+                    stats.missing++;
+                } else {
+                    stats.addNumber(type == LONG ? longValues[row] : doubleValues[row]);
+                }
+            }
+        }
+        
+        private void addNumber(char[] buffer, int offset, int length) {
+            if (type == LONG && isLongField(buffer, offset, length)) {
+                longValues[size] = parseLong(buffer, offset, length);
+                displayWidth = Math.max(displayWidth, longWidth(longValues[size]));
+                return;
+            }
+            
+            double value = parseNumber(buffer, offset, length);
+            displayWidth = Math.max(displayWidth, numberWidth(value));
+            if (type == LONG && value == (long) value && Math.abs(value) < (1L << 53)) {
+                longValues[size] = (long) value;
+            } else if (type == TEXT) {
+                codes[size] = dictionary.add(formatNumber(value));
+            } else {
+                if (type == LONG) {
+                    convertToDouble();
+                }
+                doubleValues[size] = value;
+            }
+        }
+        
+        private void convertToDouble() {
+            doubleValues = new double[longValues.length];
+            for (int row = 0; row < size; row++) {
+                doubleValues[row] = longValues[row];
+            }
+            longValues = null;
+            type = DOUBLE;
+        }
+        
+        private void convertToText() {
+            int[] textCodes = new int[type == LONG ? longValues.length : doubleValues.length];
+            dictionary = new TextDictionary();
+            for (int row = 0; row < size; row++) {
+                if (!isNull(row)) {
+                    textCodes[row] = dictionary.add(displayValue(row));
+                }
+            }
+            codes = textCodes;
+            longValues = null;
+            doubleValues = null;
+            type = TEXT;
+        }
+        
+        private void ensureCapacity(int capacity) {
+            if ((capacity + 63) >>> 6 > nullBits.length) {
+                nullBits = Arrays.copyOf(nullBits, nullBits.length * 2);
+            }
+            
+            int current = type == LONG ? longValues.length : type == DOUBLE ? doubleValues.length : codes.length;
+            if (capacity <= current) {
+                return;
+            }
+            int grown = Math.max(capacity, current + (current >> 1));
+            switch (type) {
+                case LONG: longValues = Arrays.copyOf(longValues, grown); break;
+                case DOUBLE: doubleValues = Arrays.copyOf(doubleValues, grown); break;
+                default: codes = Arrays.copyOf(codes, grown);
+            }
+        }
+    }
+    
+    static class TableRenderer {
+        private static final int FLUSH_THRESHOLD = 64 * 1024;
+        private static final String LINE_SEPARATOR = System.lineSeparator();
+        
+        private final Writer out;
+        private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD * 2);
+        private final Formatter formatter = new Formatter(buffer);
+        private char[] transfer = new char[FLUSH_THRESHOLD * 2];
+        
+        TableRenderer(Writer out) {
+            this.out = out;
+        }
+        
+        void render(ColumnarTable table, RenderSettings settings) throws IOException {
+            int[] widths = table.columnWidths();
+            int rows = table.rowCount;
+            
+            if (!settings.isPreview() || (long) settings.head + settings.tail + settings.sample >= rows) {
+                for (int row = 0; row < rows; row++) {
+                    renderRow(table, row, widths);
+                }
+                flush();
+                return;
+            }
+            
+            int head = Math.min(settings.head, rows);
+            int tailStart = Math.max(head, rows - settings.tail);
+            int middle = tailStart - head;
+            int samples = Math.min(settings.sample, middle);
+            
+            for (int row = 0; row < head; row++) {
+                renderRow(table, row, widths);
+            }
+            
+            int next = head;
+            for (int i = 0; i < samples; i++) {
+                int row = head + (int) ((2L * i + 1) * middle / (2L * samples));
+                renderGap(row - next);
+                renderRow(table, row, widths);
+                next = row + 1;
+            }
+            renderGap(tailStart - next);
+            
+            for (int row = tailStart; row < rows; row++) {
+                renderRow(table, row, widths);
+            }
+            flush();
+        }
+        
+        void render(String[][] data, int[] widths) throws IOException {
+            for (String[] row : data) {
+                for (int col = 0; col < row.length; col++) {
+                    buffer.append(row[col]);
+                    pad(widths[col] - row[col].length() + 2);
+                }
+                endLine();
+            }
+            flush();
+        }
+        
+        private void renderRow(ColumnarTable table, int row, int[] widths) throws IOException {
+            for (int col = 0; col < widths.length; col++) {
+                int start = buffer.length();
+                appendValue(table.columns[col], row);
+                pad(widths[col] - (buffer.length() - start) + 2);
+            }
+            endLine();
+        }
+        
+        private void appendValue(Column column, int row) {
+            if (column.isNull(row)) {
+                buffer.append(MISSING);
+                return;
+            }
+            
+            switch (column.type) {
+                case Column.LONG:
+                    buffer.append(column.longValues[row]);
+                    break;
+                case Column.DOUBLE:
+                    double value = column.doubleValues[row];
+                    if (value == (long) value) {
+                        buffer.append((long) value);
+                    } else {
+                        formatter.format("%.2f", value);
+                    }
+                    break;
+                default:
+                    buffer.append(column.dictionary.get(column.codes[row]));
+            }
+        }
+        
+        private void renderGap(int omittedRows) throws IOException {
+            if (omittedRows > 0) {
+                buffer.append("... (").append(omittedRows).append(" rows omitted)");
+                endLine();
+            }
+        }
+        
+        private void pad(int count) {
+            for (int i = 0; i < count; i++) {
+                buffer.append(' ');
+            }
+        }
+        
+        private void endLine() throws IOException {
+            buffer.append(LINE_SEPARATOR);
+            if (buffer.length() >= FLUSH_THRESHOLD) {
+                flush();
+            }
+        }
+        
+        private void flush() throws IOException {
+            int length = buffer.length();
+            if (transfer.length < length) {
+                transfer = new char[length];
+            }
+            buffer.getChars(0, length, transfer, 0);
+            out.write(transfer, 0, length);
+            buffer.setLength(0);
+        }
+    }
+    
+    static class TableCache {
+        private static final int MAGIC = 0x43535643;
+        private static final int VERSION = 2;
+        private static final int HEADER_SIZE = 52;
+        private static final int FINGERPRINT_SPAN = 64 * 1024;
+        private static final int WRITE_BUFFER_SIZE = 1 << 20;
+        
+        static class Key {
+            final long size;
+            final long modified;
+            final long fingerprint;
+            
+            Key(long size, long modified, long fingerprint) {
+                this.size = size;
+                this.modified = modified;
+                this.fingerprint = fingerprint;
+            }
+            
+            static Key of(Path source) throws IOException {
+                try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+                    long size = channel.size();
+                    CRC32C crc = new CRC32C();
+                    if (size > 0) {
+                        crc.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, FINGERPRINT_SPAN)));
+                        long tailStart = Math.max(0, size - FINGERPRINT_SPAN);
+                        crc.update(channel.map(FileChannel.MapMode.READ_ONLY, tailStart, size - tailStart));
+                    }
+                    return new Key(size, Files.getLastModifiedTime(source).toMillis(), crc.getValue());
+                }
+            }
+        }
+        
+        static ColumnarTable read(Path cache, Key key) throws IOException {
+            if (!Files.isRegularFile(cache)) {
+                return null;
+            }
+            
+            try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+                if (channel.size() < HEADER_SIZE) {
+                    return null;
+                }
+                
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                }
+                header.flip();
+                if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION
+                        || header.getLong() != key.size || header.getLong() != key.modified
+                        || header.getLong() != key.fingerprint) {
+                    return null;
+                }
+                
+                int rowCount = header.getInt();
+                int columnCount = header.getInt();
+                long bodyLength = header.getLong();
+                int bodyChecksum = header.getInt();
+                if (rowCount < 0 || columnCount < 0 || bodyLength != channel.size() - HEADER_SIZE) {
+                    return null;
+                }
+                
+                BodyReader body = new BodyReader(channel, HEADER_SIZE, channel.size());
+                if (body.checksum() != bodyChecksum) {
+                    return null;
+                }
+                
+                try {
+                    return readBody(body, rowCount, columnCount);
+                } catch (IllegalArgumentException | IndexOutOfBoundsException | BufferUnderflowException e) {
+                    return null;
+                }
+            }
+        }
+        
+        private static ColumnarTable readBody(BodyReader body, int rowCount, int columnCount) throws IOException {
+            body.require(columnCount * 3L);
+            ColumnarTable table = new ColumnarTable();
+            table.rowCount = rowCount;
+            table.columns = new Column[columnCount];
+            int nullWords = (rowCount + 63) >>> 6;
+            
+            for (int col = 0; col < columnCount; col++) {
+                Column column = new Column();
+                column.type = body.get();
+                column.displayWidth = body.getCount();
+                column.size = rowCount;
+                column.nullBits = new long[nullWords];
+                if (body.get() != 0) {
+                    body.require(nullWords * 8L);
+                    body.getLongs(column.nullBits);
+                }
+                
+                switch (column.type) {
+                    case Column.LONG:
+                        body.require(rowCount);
+                        column.longValues = new long[rowCount];
+                        long previous = 0;
+                        for (int row = 0; row < rowCount; row++) {
+                            long zigzag = body.getVarLong();
+                            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+                            column.longValues[row] = previous;
+                        }
+                        break;
+                    case Column.DOUBLE:
+                        body.require(rowCount * 8L);
+                        column.longValues = null;
+                        column.doubleValues = new double[rowCount];
+                        body.getDoubles(column.doubleValues);
+                        break;
+                    case Column.TEXT:
+                        column.longValues = null;
+                        readDictionary(body, column);
+                        body.require(rowCount);
+                        column.codes = new int[rowCount];
+                        for (int row = 0; row < rowCount; row++) {
+                            int code = body.getCount();
+                            if (code >= column.dictionary.size()) {
+                                throw new IllegalArgumentException("Dictionary code out of range");
+                            }
+                            column.codes[row] = code;
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown column type " + column.type);
+                }
+                table.columns[col] = column;
+            }
+            
+            if (body.remaining() != 0) {
+                throw new IllegalArgumentException("Trailing bytes in cache body");
+            }
+            return table;
+        }
+        
+        private static void readDictionary(BodyReader body, Column column) throws IOException {
+            int entries = body.getCount();
+            body.require(entries);
+            column.dictionary = new TextDictionary();
+            byte[] bytes = new byte[256];
+            
+            for (int code = 0; code < entries; code++) {
+                int length = body.getCount();
+                body.require(length);
+                if (bytes.length < length) {
+                    bytes = new byte[length];
+                }
+                body.getBytes(bytes, length);
+                column.dictionary.add(new String(bytes, 0, length, StandardCharsets.UTF_8));
+            }
+        }
+        
+        static void write(Path cache, Key key, ColumnarTable table) throws IOException {
+            Path temporary = cache.resolveSibling(cache.getFileName() + ".tmp");
+            
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                BodyWriter body = new BodyWriter(channel, HEADER_SIZE);
+                int nullWords = (table.rowCount + 63) >>> 6;
+                
+                for (Column column : table.columns) {
+                    body.put(column.type);
+                    body.putVarLong(column.displayWidth);
+                    boolean hasNulls = false;
+                    for (int word = 0; word < nullWords && !hasNulls; word++) {
+                        hasNulls = column.nullBits[word] != 0;
+                    }
+                    body.put((byte) (hasNulls ? 1 : 0));
+                    if (hasNulls) {
+                        body.putLongs(column.nullBits, nullWords);
+                    }
+                    
+                    switch (column.type) {
+                        case Column.LONG:
+                            long previous = 0;
+                            for (int row = 0; row < table.rowCount; row++) {
+                                long delta = column.longValues[row] - previous;
+                                body.putVarLong((delta << 1) ^ (delta >> 63));
+                                previous = column.longValues[row];
+                            }
+                            break;
+                        case Column.DOUBLE:
+                            body.putDoubles(column.doubleValues, table.rowCount);
+                            break;
+                        default:
+                            body.putVarLong(column.dictionary.size());
+                            for (int code = 0; code < column.dictionary.size(); code++) {
+                                byte[] bytes = column.dictionary.get(code).getBytes(StandardCharsets.UTF_8);
+                                body.putVarLong(bytes.length);
+                                body.putBytes(bytes);
+                            }
+                            for (int row = 0; row < table.rowCount; row++) {
+                                body.putVarLong(column.codes[row]);
+                            }
+                    }
+                }
+                body.flush();
+                
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putLong(key.size).putLong(key.modified).putLong(key.fingerprint);
+                header.putInt(table.rowCount).putInt(table.columns.length);
+                header.putLong(body.length).putInt((int) body.crc.getValue());
+                header.flip();
+                for (long position = 0; header.hasRemaining(); ) {
+                    position += channel.write(header, position);
+                }
+            }
+            
+            Files.move(temporary, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        
+        static class BodyWriter {
+            private final FileChannel channel;
+            private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            private final CRC32C crc = new CRC32C();
+            private long position;
+            long length;
+            
+            BodyWriter(FileChannel channel, long position) {
+                this.channel = channel;
+                this.position = position;
+            }
+            
+            void put(byte value) throws IOException {
+                ensureRoom(1);
+                buffer.put(value);
+            }
+            
+            void putVarLong(long value) throws IOException {
+                ensureRoom(10);
+                while ((value & ~0x7FL) != 0) {
+                    buffer.put((byte) ((value & 0x7F) | 0x80));
+                    value >>>= 7;
+                }
+                buffer.put((byte) value);
+            }
+            
+            void putBytes(byte[] bytes) throws IOException {
+                for (int offset = 0; offset < bytes.length; ) {
+                    ensureRoom(1);
+                    int chunk = Math.min(bytes.length - offset, buffer.remaining());
+                    buffer.put(bytes, offset, chunk);
+                    offset += chunk;
+                }
+            }
+            
+            void putLongs(long[] values, int count) throws IOException {
+                for (int done = 0; done < count; ) {
+                    ensureRoom(8);
+                    int chunk = Math.min(count - done, buffer.remaining() / 8);
+                    buffer.asLongBuffer().put(values, done, chunk);
+                    buffer.position(buffer.position() + chunk * 8);
+                    done += chunk;
+                }
+            }
+            
+            void putDoubles(double[] values, int count) throws IOException {
+                for (int done = 0; done < count; ) {
+                    ensureRoom(8);
+                    int chunk = Math.min(count - done, buffer.remaining() / 8);
+                    buffer.asDoubleBuffer().put(values, done, chunk);
+                    buffer.position(buffer.position() + chunk * 8);
+                    done += chunk;
+                }
+            }
+            
+            private void ensureRoom(int bytes) throws IOException {
+                if (buffer.remaining() < bytes) {
+                    flush();
+                }
+            }
+            
+            void flush() throws IOException {
+                buffer.flip();
+                crc.update(buffer.duplicate());
+                length += buffer.remaining();
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                buffer.clear();
+            }
+        }
+        
+        static class BodyReader {
+            private final FileChannel channel;
+            private final long start;
+            private final long end;
+            private MappedByteBuffer window;
+            private long windowStart;
+            private long position;
+            
+            BodyReader(FileChannel channel, long start, long end) throws IOException {
+                this.channel = channel;
+                this.start = start;
+                this.end = end;
+                this.position = start;
+                remap(0);
+            }
+            
+            int checksum() throws IOException {
+                CRC32C crc = new CRC32C();
+                for (long offset = start; offset < end; ) {
+                    if (offset < windowStart || offset >= windowStart + window.capacity()) {
+                        position = offset;
+                        remap(1);
+                    }
+                    ByteBuffer chunk = window.duplicate();
+                    chunk.position((int) (offset - windowStart));
+                    offset += chunk.remaining();
+                    crc.update(chunk);
+                }
+                position = start;
+                if (windowStart != start) {
+                    remap(0);
+                }
+                return (int) crc.getValue();
+            }
+            
+            long remaining() {
+                return end - position;
+            }
+            
+            void require(long bytes) {
+                if (bytes < 0 || bytes > end - position) {
+                    throw new IllegalArgumentException("Cache body is truncated");
+                }
+            }
+            
+            byte get() throws IOException {
+                ensure(1);
+                return window.get((int) (position++ - windowStart));
+            }
+            
+            long getVarLong() throws IOException {
+                long value = 0;
+                for (int shift = 0; shift < 64; shift += 7) {
+                    byte b = get();
+                    value |= (long) (b & 0x7F) << shift;
+                    if (b >= 0) {
+                        return value;
+                    }
+                }
+                throw new IllegalArgumentException("Malformed varint in cache body");
+            }
+            
+            int getCount() throws IOException {
+                long value = getVarLong();
+                if (value < 0 || value > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Count out of range in cache body");
+                }
+                return (int) value;
+            }
+            
+            void getBytes(byte[] target, int length) throws IOException {
+                for (int done = 0; done < length; ) {
+                    ensure(1);
+                    int chunk = (int) Math.min(length - done, windowStart + window.capacity() - position);
+                    window.get((int) (position - windowStart), target, done, chunk);
+                    position += chunk;
+                    done += chunk;
+                }
+            }
+            
+            void getLongs(long[] target) throws IOException {
+                for (int done = 0; done < target.length; ) {
+                    ensure(8);
+                    int chunk = (int) Math.min(target.length - done, (windowStart + window.capacity() - position) / 8);
+                    window.position((int) (position - windowStart));
+                    window.asLongBuffer().get(target, done, chunk);
+                    position += chunk * 8L;
+                    done += chunk;
+                }
+            }
+            
+            void getDoubles(double[] target) throws IOException {
+                for (int done = 0; done < target.length; ) {
+                    ensure(8);
+                    int chunk = (int) Math.min(target.length - done, (windowStart + window.capacity() - position) / 8);
+                    window.position((int) (position - windowStart));
+                    window.asDoubleBuffer().get(target, done, chunk);
+                    position += chunk * 8L;
+                    done += chunk;
+                }
+            }
+            
+            private void ensure(int bytes) throws IOException {
+                require(bytes);
+                if (position + bytes > windowStart + window.capacity()) {
+                    remap(bytes);
+                }
+            }
+            
+            private void remap(int bytes) throws IOException {
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                        Math.min(Math.max(MAX_MAPPED_CHUNK, bytes), end - windowStart));
+            }
+        }
+    }
+    
+    static class RenderSettings {
+        int head;
+        int tail;
+        int sample;
+        String outputPath;
+        
+        boolean isPreview() {
+            return head > 0 || tail > 0 || sample > 0;
+        }
+    }
+    
+    static class TextDictionary {
+        private String[] values = new String[16];
+        private int[] hashes = new int[16];
+        private int[] slots = new int[32];
+        private int size;
+        
+        int size() {
+            return size;
+        }
+        
+        String get(int code) {
+            return values[code];
+        }
+        
+        int add(String value) {
+            int hash = value.hashCode();
+            int mask = slots.length - 1;
+            for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+                int code = slots[slot] - 1;
+                if (code < 0) {
+                    return insert(value, hash, slot);
+                }
+                if (hashes[code] == hash && values[code].equals(value)) {
+                    return code;
+                }
+            }
+        }
+        
+        int add(char[] buffer, int offset, int length) {
+            int hash = 0;
+            for (int i = offset; i < offset + length; i++) {
+                hash = 31 * hash + buffer[i];
+            }
+            
+            int mask = slots.length - 1;
+            for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+                int code = slots[slot] - 1;
+                if (code < 0) {
+                    return insert(new String(buffer, offset, length), hash, slot);
+                }
+                if (hashes[code] == hash && matches(values[code], buffer, offset, length)) {
+                    return code;
+                }
+            }
+        }
+        
+        private static boolean matches(String value, char[] buffer, int offset, int length) {
+            if (value.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (value.charAt(i) != buffer[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        private int insert(String value, int hash, int slot) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+                hashes = Arrays.copyOf(hashes, size * 2);
+            }
+            
+            int code = size++;
+            values[code] = value;
+            hashes[code] = hash;
+            slots[slot] = code + 1;
+            
+            if (size * 2 > slots.length) {
+                slots = new int[slots.length * 2];
+                int mask = slots.length - 1;
+                for (int existing = 0; existing < size; existing++) {
+                    int target = spread(hashes[existing]) & mask;
+                    while (slots[target] != 0) {
+                        target = (target + 1) & mask;
+                    }
+                    slots[target] = existing + 1;
+                }
+            }
+            return code;
+        }
+        
+        private static int spread(int hash) {
+            hash *= 0x9e3779b9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+    
+    static class LongHashSet {
+        private long[] table = new long[32];
+        private boolean containsZero;
+        private int size;
+        
+        int size() {
+            return size;
+        }
+        
+        boolean add(long value) {
+            if (value == 0) {
+                if (containsZero) {
+                    return false;
+                }
+                containsZero = true;
+                size++;
+                return true;
+            }
+            
+            int mask = table.length - 1;
+            for (int slot = (int) HyperLogLog.mix64(value) & mask; ; slot = (slot + 1) & mask) {
+                if (table[slot] == value) {
+                    return false;
+                }
+                if (table[slot] == 0) {
+                    table[slot] = value;
+                    size++;
+                    if (size * 2 > table.length) {
+                        rehash();
+                    }
+                    return true;
+                }
+            }
+        }
+        
+        void forEach(LongConsumer action) {
+            if (containsZero) {
+                action.accept(0);
+            }
+            for (long value : table) {
+                if (value != 0) {
+                    action.accept(value);
+                }
+            }
+        }
+        
+        private void rehash() {
+            long[] old = table;
+            table = new long[old.length * 2];
+            int mask = table.length - 1;
+            for (long value : old) {
+                if (value != 0) {
+                    int slot = (int) HyperLogLog.mix64(value) & mask;
+                    while (table[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    table[slot] = value;
+                }
+            }
+        }
+    }
+    
+    static class Benchmark {
+        private static final int WARMUP_ITERATIONS = 3;
+        private static final int NARROW_COLUMNS = 4;
+        private static final int WIDE_COLUMNS = 100;
+        private static final String[] SHAPES = {
+            "narrow-numeric", "narrow-text", "wide-numeric", "wide-text", "quoted", "sparse"
+        };
+        private static final String[] WORDS = {
+            "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel", "india", "juliet",
+            "kilo", "lima", "mike", "november", "oscar", "papa", "quebec", "romeo", "sierra", "tango"
+        };
+        
+        static volatile Object sink;
+        
+        static void run(int[] rowCounts, int iterations) {
+            PrintStream console = System.out;
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            boolean allocationSupported = threads instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported();
+            
+            console.println("CSV Analyzer benchmark (" + WARMUP_ITERATIONS + " warmup, " + iterations
+                    + " measured iterations, single-threaded stages)");
+            console.printf("%-15s %8s %8s  %-13s %14s %12s%n", "dataset", "rows", "columns", "stage", "rows/sec", "bytes/row");
+            
+            AnalysisSettings settings = new AnalysisSettings();
+            settings.parallelism = 1;
+            
+            for (String shape : SHAPES) {
+                for (int requestedRows : rowCounts) {
+                    int rows = shape.startsWith("wide") ? Math.max(1, requestedRows / 10) : requestedRows;
+                    String csv = generate(shape, rows);
+                    String[][] parsed = parseCSVData(csv);
+                    String[][] cleaned = validateAndCleanData(parsed);
+                    ColumnarTable table = buildColumnarTable(csv);
+                    int columns = parsed.length == 0 ? 0 : parsed[0].length;
+                    
+                    Stage[] stages = {
+                        new Stage("parse", () -> parseCSVData(csv)),
+                        new Stage("clean", () -> validateAndCleanData(parsed)),
+                        new Stage("report", () -> { generateSummaryReport(cleaned, settings); return cleaned; }),
+                        new Stage("table-build", () -> buildColumnarTable(csv)),
+                        new Stage("table-report", () -> table.summarize(settings)),
+                        new Stage("table-render", () -> { formatTableOutput(table); return table; })
+                    };
+                    
+                    for (Stage stage : stages) {
+                        double[] result = measure(stage.work, iterations, threads, allocationSupported);
+                        console.printf("%-15s %8d %8d  %-13s %14.0f %12s%n", shape, rows, columns, stage.name,
+                                rows / result[0], allocationSupported ? String.format("%.1f", result[1] / rows) : "n/a");
+                    }
+                }
+            }
+        }
+        
+        private static double[] measure(Supplier<Object> work, int iterations, ThreadMXBean threads,
+                                        boolean allocationSupported) {
+            PrintStream console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                    sink = work.get();
+                }
+                
+                long totalNanos = 0;
+                long totalBytes = 0;
+                for (int i = 0; i < iterations; i++) {
+                    long bytesBefore = allocationSupported ? allocatedBytes(threads) : 0;
+                    long started = System.nanoTime();
+                    sink = work.get();
+                    totalNanos += System.nanoTime() - started;
+                    totalBytes += allocationSupported ? allocatedBytes(threads) - bytesBefore : 0;
+                }
+                return new double[] {totalNanos / 1e9 / iterations, (double) totalBytes / iterations};
+            } finally {
+                System.setOut(console);
+            }
+        }
+        
+        private static long allocatedBytes(ThreadMXBean threads) {
+            return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+        }
+        
+        static String generate(String shape, int rows) {
+            Random random = new Random(42);
+            StringBuilder csv = new StringBuilder();
+            int columns = shape.startsWith("wide") ? WIDE_COLUMNS : shape.equals("sparse") ? 8 : NARROW_COLUMNS;
+            
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < columns; col++) {
+                    if (col > 0) {
+                        csv.append(',');
+                    }
+                    switch (shape) {
+                        case "narrow-numeric":
+                        case "wide-numeric":
+                            appendNumber(csv, random, col);
+                            break;
+                        case "narrow-text":
+                        case "wide-text":
+                            csv.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(100));
+                            break;
+                        case "quoted":
+                            csv.append('"').append(WORDS[random.nextInt(WORDS.length)]).append(", ")
+                               .append(WORDS[random.nextInt(WORDS.length)]);
+                            if (random.nextInt(10) == 0) {
+                                csv.append('\n').append(WORDS[random.nextInt(WORDS.length)]);
+                            }
+                            csv.append('"');
+                            break;
+                        default:
+                            if (random.nextInt(10) >= 4) {
+                                appendNumber(csv, random, col);
+                            }
+                    }
+                }
+                csv.append('\n');
+            }
+            return csv.toString();
+        }
+        
+        private static void appendNumber(StringBuilder csv, Random random, int col) {
+            switch (col % 3) {
+                case 0: csv.append(random.nextInt(1_000_000)); break;
+                case 1: csv.append(random.nextInt(100_000) / 100.0); break;
+                default: csv.append(-random.nextInt(10_000) / 1000.0);
+            }
+        }
+        
+        static class Stage {
+            final String name;
+            final Supplier<Object> work;
+            
+            Stage(String name, Supplier<Object> work) {
+                this.name = name;
+                this.work = work;
+            }
+        }
+    }
+    
+    static class Options {
+        boolean streaming;
+        String inputPath;
+        int threads = Runtime.getRuntime().availableProcessors();
+        AnalysisSettings settings = new AnalysisSettings();
+        RenderSettings render = new RenderSettings();
+        boolean cache;
+        String cachePath;
+        boolean benchmark;
+        int[] benchmarkRows = {1_000, 10_000, 100_000};
+        int benchmarkIterations = 5;
+        
+        static Options parse(String[] args) {
+            Options options = new Options();
+            
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--stream":
+                        options.streaming = true;
+                        break;
+                    case "--file":
+                        options.inputPath = requireValue(args, ++i, "--file");
+                        break;
+                    case "--threads":
+                        options.threads = parsePositiveInt(requireValue(args, ++i, "--threads"), "--threads");
+                        options.settings.parallelism = options.threads;
+                        break;
+                    case "--distinct":
+                        options.settings.distinctMethod = requireValue(args, ++i, "--distinct");
+                        if (!options.settings.distinctMethod.equals("exact") && !options.settings.distinctMethod.equals("approx")
+                                && !options.settings.distinctMethod.equals("auto")) {
+                            throw new IllegalArgumentException("--distinct expects exact, approx or auto, got: "
+                                    + options.settings.distinctMethod);
+                        }
+                        break;
+                    case "--distinct-error":
+                        options.settings.distinctError = parseFraction(requireValue(args, ++i, "--distinct-error"), "--distinct-error");
+                        break;
+                    case "--bench":
+                        options.benchmark = true;
+                        break;
+                    case "--bench-rows":
+                        String[] sizes = requireValue(args, ++i, "--bench-rows").split(",");
+                        options.benchmarkRows = new int[sizes.length];
+                        for (int size = 0; size < sizes.length; size++) {
+                            options.benchmarkRows[size] = parsePositiveInt(sizes[size].trim(), "--bench-rows");
+                        }
+                        break;
+                    case "--bench-iterations":
+                        options.benchmarkIterations = parsePositiveInt(requireValue(args, ++i, "--bench-iterations"),
+                                "--bench-iterations");
+                        break;
+                    case "--cache":
+                        options.cache = true;
+                        break;
+                    case "--cache-file":
+                        options.cache = true;
+                        options.cachePath = requireValue(args, ++i, "--cache-file");
+                        break;
+                    case "--head":
+                        options.render.head = parsePositiveInt(requireValue(args, ++i, "--head"), "--head");
+                        break;
+                    case "--tail":
+                        options.render.tail = parsePositiveInt(requireValue(args, ++i, "--tail"), "--tail");
+                        break;
+                    case "--sample":
+                        options.render.sample = parsePositiveInt(requireValue(args, ++i, "--sample"), "--sample");
+                        break;
+                    case "--table-output":
+                        options.render.outputPath = requireValue(args, ++i, "--table-output");
+                        break;
+                    case "--histogram-bins":
+                        options.settings.histogramBins = parsePositiveInt(requireValue(args, ++i, "--histogram-bins"),
+                                "--histogram-bins");
+                        if (options.settings.histogramBins < 2) {
+                            throw new IllegalArgumentException("--histogram-bins expects at least 2, got: "
+                                    + options.settings.histogramBins);
+                        }
+                        break;
+                    case "--distinct-exact-limit":
+                        options.settings.distinctExactLimit = parsePositiveInt(requireValue(args, ++i, "--distinct-exact-limit"),
+                                "--distinct-exact-limit");
+                        break;
+                    default:
+                        if (args[i].startsWith("--") || options.inputPath != null) {
+                            throw new IllegalArgumentException("Unknown option: " + args[i]);
+                        }
+                        options.inputPath = args[i];
+                }
+            }
+            
+            return options;
+        }
+        
+        private static String requireValue(String[] args, int index, String option) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            return args[index];
+        }
+        
+        private static int parsePositiveInt(String value, String option) {
+            try {
+                int number = Integer.parseInt(value);
+                if (number > 0) {
+                    return number;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to the error below
+            }
+            throw new IllegalArgumentException(option + " expects a positive integer, got: " + value);
+        }
+        
+        private static double parseFraction(String value, String option) {
+            try {
+                double number = Double.parseDouble(value);
+                if (number > 0 && number < 1) {
+                    return number;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to the error below
             }
+            throw new IllegalArgumentException(option + " expects a number between 0 and 1, got: " + value);
         }
-        return unique.size();
     }
 }
@@ -1,7 +1,28 @@
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TextCalculator {
 
+    static final int CACHE_CAPACITY = 256;
+    static final int BATCH_SIZE = 1024;
+    static final int CODEGEN_THRESHOLD = Integer.getInteger("calculator.codegenThreshold", 10_000);
+
+    static final int OP_CONST = 0;
+    static final int OP_LOAD = 1;
+    static final int OP_NEG = 2;
+    static final int OP_ADD = 3;
+    static final int OP_SUB = 4;
+    static final int OP_MUL = 5;
+    static final int OP_DIV = 6;
+    static final int OP_STORE = 7;
+    static final int OP_TEMP = 8;
+    static final char[] OPERATOR_SYMBOLS = {0, 0, '-', '+', '-', '*', '/'};
+
+    private static final ExpressionCache CACHE = new ExpressionCache(CACHE_CAPACITY);
+    private static final ThreadLocal<double[]> STACKS = ThreadLocal.withInitial(() -> new double[16]);
+
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
 
@@ -13,6 +34,7 @@ public class TextCalculator {
             String expression = scanner.nextLine().trim();
 
             if (expression.equalsIgnoreCase("quit")) {
+                System.out.println(cacheStatistics());
                 break;
             }
 
@@ -34,28 +56,93 @@ public class TextCalculator {
 
     public static double evaluateExpression(String expression) {
         System.out.println("\nEvaluating: " + expression);
-        List<String> postfix = infixToPostfix(expression);
-        System.out.println("Postfix: " + postfix);
-        double result = evaluatePostfix(postfix);
+        CompiledExpression compiled = compile(expression);
+        System.out.println("Postfix: " + compiled.postfix);
+        if (compiled.program.code.length < compiled.postfix.size()) {
+            System.out.println("Optimized: " + compiled.program);
+        }
+        if (!compiled.variables.isEmpty()) {
+            throw new IllegalArgumentException("Unbound variable: " + compiled.variables.get(0));
+        }
+        double result = compiled.evaluate(CompiledExpression.NO_VALUES, (a, operator, b, value) ->
+                System.out.println("Step: " + a + " " + operator + " " + b + " = " + value));
         System.out.println("Calculation complete!");
         return result;
     }
 
+    public static double evaluate(String expression) {
+        return compile(expression).evaluate();
+    }
+
+    public static double[] evaluateColumns(String expression, Map<String, double[]> columns, int rows) {
+        if (rows < 0) throw new IllegalArgumentException("Row count must not be negative: " + rows);
+        double[] result = new double[rows];
+        compile(expression).evaluateColumns(columns, rows, result);
+        return result;
+    }
+
+    public static String cacheStatistics() {
+        return CACHE.describe();
+    }
+
+    public static CompiledExpression compile(String expression) {
+        return CACHE.get(expression);
+    }
+
+    private static CompiledExpression compileUncached(String expression) {
+        List<String> postfix = infixToPostfix(expression);
+        Deque<Node> stack = new ArrayDeque<>();
+        Map<String, Integer> slots = new LinkedHashMap<>();
+
+        for (String token : postfix) {
+            if (isNumber(token)) {
+                stack.push(new Constant(Double.parseDouble(token)));
+            } else if (isVariable(token)) {
+                boolean negated = token.startsWith("-");
+                String name = negated ? token.substring(1) : token;
+                Integer slot = slots.get(name);
+                if (slot == null) {
+                    slot = slots.size();
+                    slots.put(name, slot);
+                }
+                Node variable = new Variable(name, slot);
+                stack.push(negated ? new Negate(variable) : variable);
+            } else if (isOperator(token.charAt(0))) {
+                if (stack.size() < 2) throw new IllegalArgumentException("Invalid expression");
+                Node right = stack.pop();
+                Node left = stack.pop();
+                stack.push(new Binary(token.charAt(0), left, right));
+            } else {
+                throw new IllegalArgumentException("Invalid number: " + token);
+            }
+        }
+
+        if (stack.size() != 1) throw new IllegalArgumentException("Invalid expression");
+        return new CompiledExpression(expression, postfix, new ArrayList<>(slots.keySet()), stack.pop());
+    }
+
     private static List<String> infixToPostfix(String expression) {
         List<String> output = new ArrayList<>();
         Stack<Character> operators = new Stack<>();
-        StringBuilder number = new StringBuilder();
-        char[] chars = expression.replaceAll("\\s+", "").toCharArray();
+        StringBuilder operand = new StringBuilder();
+        char previous = 0;
 
-        for (int i = 0; i < chars.length; i++) {
-            char c = chars[i];
+        for (char c : expression.toCharArray()) {
+            if (Character.isWhitespace(c)) {
+                if (operand.length() > 0 && !(operand.length() == 1 && operand.charAt(0) == '-')) {
+                    output.add(operand.toString());
+                    operand.setLength(0);
+                }
+                continue;
+            }
 
-            if (Character.isDigit(c) || c == '.') {
-                number.append(c);
+            if (Character.isLetterOrDigit(c) || c == '.' || c == '_'
+                    || ((c == '-' || c == '+') && isExponentPrefix(operand))) {
+                operand.append(c);
             } else {
-                if (number.length() > 0) {
-                    output.add(number.toString());
-                    number.setLength(0);
+                if (operand.length() > 0) {
+                    output.add(operand.toString());
+                    operand.setLength(0);
                 }
 
                 if (c == '(') {
@@ -68,8 +155,8 @@ public class TextCalculator {
                         throw new IllegalArgumentException("Mismatched parentheses");
                     }
                 } else if (isOperator(c)) {
-                    if (c == '-' && (i == 0 || chars[i - 1] == '(' || isOperator(chars[i - 1]))) {
-                        number.append(c);
+                    if (c == '-' && (previous == 0 || previous == '(' || isOperator(previous))) {
+                        operand.append(c);
                     } else {
                         while (!operators.isEmpty() && precedence(operators.peek()) >= precedence(c)) {
                             output.add(String.valueOf(operators.pop()));
@@ -80,10 +167,11 @@ public class TextCalculator {
                     throw new IllegalArgumentException("Invalid character: " + c);
                 }
             }
+            previous = c;
         }
 
-        if (number.length() > 0) {
-            output.add(number.toString());
+        if (operand.length() > 0) {
+            output.add(operand.toString());
         }
 
         while (!operators.isEmpty()) {
@@ -97,26 +185,6 @@ public class TextCalculator {
         return output;
     }
 
-    private static double evaluatePostfix(List<String> postfix) {
-        Stack<Double> stack = new Stack<>();
-
-        for (String token : postfix) {
-            if (isNumber(token)) {
-                stack.push(Double.parseDouble(token));
-            } else if (isOperator(token.charAt(0))) {
-                if (stack.size() < 2) throw new IllegalArgumentException("Invalid expression");
-                double b = stack.pop();
-                double a = stack.pop();
-                double result = applyOperation(a, b, token.charAt(0));
-                System.out.println("Step: " + a + " " + token + " " + b + " = " + result);
-                stack.push(result);
-            }
-        }
-
-        if (stack.size() != 1) throw new IllegalArgumentException("Invalid expression");
-        return stack.pop();
-    }
-
     private static boolean isOperator(char c) {
         return c == '+' || c == '-' || c == '*' || c == '/';
     }
@@ -134,20 +202,849 @@ public class TextCalculator {
             case '+': return a + b;
             case '-': return a - b;
             case '*': return a * b;
-            case '/':
-                if (b == 0) throw new ArithmeticException("Division by zero");
-                return a / b;
+            case '/': return divide(a, b);
         }
         throw new IllegalArgumentException("Unknown operator: " + operator);
     }
 
-    private static boolean isNumber(String s) {
-        try {
-            Double.parseDouble(s);
-            return true;
-        } catch (NumberFormatException e) {
+    static double divide(double a, double b) {
+        if (b == 0) throw new ArithmeticException("Division by zero");
+        return a / b;
+    }
+
+    private static boolean isVariable(String s) {
+        int start = s.startsWith("-") ? 1 : 0;
+        if (s.length() == start || !(Character.isLetter(s.charAt(start)) || s.charAt(start) == '_')) {
             return false;
         }
+        for (int i = start + 1; i < s.length(); i++) {
+            if (!Character.isLetterOrDigit(s.charAt(i)) && s.charAt(i) != '_') {
+                return false;
+            }
+        }
+        String name = s.substring(start);
+        return !name.equals("NaN") && !name.equals("Infinity");
+    }
+
+    private static boolean isNumber(CharSequence s) {
+        int i = mantissaEnd(s);
+        if (i < 0) return false;
+        if (i == s.length()) return true;
+        if (s.charAt(i) != 'e' && s.charAt(i) != 'E') return false;
+        i++;
+        if (i < s.length() && (s.charAt(i) == '+' || s.charAt(i) == '-')) i++;
+        int exponentStart = i;
+        while (i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9') i++;
+        return i > exponentStart && i == s.length();
+    }
+
+    private static boolean isExponentPrefix(CharSequence s) {
+        int end = mantissaEnd(s);
+        return end > 0 && end == s.length() - 1 && (s.charAt(end) == 'e' || s.charAt(end) == 'E');
+    }
+
+    private static int mantissaEnd(CharSequence s) {
+        int i = s.length() > 0 && s.charAt(0) == '-' ? 1 : 0;
+        int digits = 0;
+        boolean seenDot = false;
+        for (; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                break;
+            }
+        }
+        return digits > 0 ? i : -1;
+    }
+
+    static final class CompiledExpression {
+        static final double[] NO_VALUES = new double[0];
+
+        final String source;
+        final List<String> postfix;
+        final List<String> variables;
+        final Node parsed;
+        final Node root;
+        final Program program;
+        private Program traceProgram;
+        private final int height;
+        private volatile Evaluator generated;
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        CompiledExpression(String source, List<String> postfix, List<String> variables, Node parsed) {
+            this.source = source;
+            this.postfix = Collections.unmodifiableList(postfix);
+            this.variables = Collections.unmodifiableList(variables);
+            this.parsed = parsed;
+            this.root = parsed.simplify();
+            this.height = root.height();
+            this.program = ProgramBuilder.build(root, true);
+        }
+
+        double evaluate() {
+            return evaluate(NO_VALUES);
+        }
+
+        double evaluate(double... values) {
+            return evaluate(values, null);
+        }
+
+        double evaluate(double[] values, StepListener listener) {
+            if (values.length != variables.size()) {
+                throw new IllegalArgumentException("Expected values for " + variables + ", got " + values.length);
+            }
+            if (listener != null) {
+                return run(traceProgram(), values, listener);
+            }
+            Evaluator evaluator = generated;
+            if (evaluator != null) {
+                return evaluator.applyAsDouble(values);
+            }
+            if (CODEGEN_THRESHOLD >= 0 && invocations.incrementAndGet() >= CODEGEN_THRESHOLD) {
+                return generate().applyAsDouble(values);
+            }
+            return run(program, values, null);
+        }
+
+        private static double run(Program program, double[] values, StepListener listener) {
+            double[] stack = STACKS.get();
+            if (stack.length < program.frameSize()) {
+                stack = new double[program.frameSize()];
+                STACKS.set(stack);
+            }
+            return program.run(values, stack, listener);
+        }
+
+        private synchronized Program traceProgram() {
+            if (traceProgram == null) {
+                traceProgram = ProgramBuilder.build(parsed, false);
+            }
+            return traceProgram;
+        }
+
+        synchronized Evaluator generate() {
+            if (generated == null) {
+                try {
+                    generated = ClassGenerator.generate(program);
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    generated = values -> run(program, values, null);
+                }
+            }
+            return generated;
+        }
+
+        void evaluateColumns(Map<String, double[]> columns, int rows, double[] out) {
+            double[][] bound = new double[variables.size()][];
+            for (int i = 0; i < bound.length; i++) {
+                bound[i] = columns.get(variables.get(i));
+                if (bound[i] == null) throw new IllegalArgumentException("Unbound variable: " + variables.get(i));
+            }
+            evaluateColumns(bound, rows, out);
+        }
+
+        void evaluateColumns(double[][] columns, int rows, double[] out) {
+            if (rows < 0) throw new IllegalArgumentException("Row count must not be negative: " + rows);
+            if (columns.length != variables.size()) {
+                throw new IllegalArgumentException("Expected columns for " + variables + ", got " + columns.length);
+            }
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i].length < rows) {
+                    throw new IllegalArgumentException("Column " + variables.get(i) + " has fewer than " + rows + " rows");
+                }
+            }
+            if (out.length < rows) throw new IllegalArgumentException("Output has fewer than " + rows + " rows");
+
+            int chunk = Math.min(rows, BATCH_SIZE);
+            double[][] buffers = new double[height][chunk];
+            for (int from = 0; from < rows; from += chunk) {
+                int length = Math.min(chunk, rows - from);
+                root.evaluate(columns, from, length, buffers[0], buffers, 1);
+                System.arraycopy(buffers[0], 0, out, from, length);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return root.toString();
+        }
+    }
+
+    interface Evaluator {
+        double applyAsDouble(double[] values);
+    }
+
+    interface StepListener {
+        void step(double a, char operator, double b, double result);
+    }
+
+    static final class Program {
+        final int[] code;
+        final double[] constants;
+        final int maxStack;
+        final int temps;
+
+        Program(int[] code, double[] constants, int maxStack, int temps) {
+            this.code = code;
+            this.constants = constants;
+            this.maxStack = maxStack;
+            this.temps = temps;
+        }
+
+        int frameSize() {
+            return maxStack + temps;
+        }
+
+        double run(double[] values, double[] stack, StepListener listener) {
+            int top = -1;
+            for (int instruction : code) {
+                int opcode = instruction & 0xFF;
+                if (opcode == OP_CONST) {
+                    stack[++top] = constants[instruction >>> 8];
+                } else if (opcode == OP_LOAD) {
+                    stack[++top] = values[instruction >>> 8];
+                } else if (opcode == OP_NEG) {
+                    stack[top] = -stack[top];
+                } else if (opcode == OP_STORE) {
+                    stack[maxStack + (instruction >>> 8)] = stack[top];
+                } else if (opcode == OP_TEMP) {
+                    stack[++top] = stack[maxStack + (instruction >>> 8)];
+                } else {
+                    double b = stack[top--];
+                    double a = stack[top];
+                    double result;
+                    switch (opcode) {
+                        case OP_ADD: result = a + b; break;
+                        case OP_SUB: result = a - b; break;
+                        case OP_MUL: result = a * b; break;
+                        case OP_DIV: result = divide(a, b); break;
+                        default: throw new IllegalStateException("Unknown opcode: " + opcode);
+                    }
+                    stack[top] = result;
+                    if (listener != null) listener.step(a, OPERATOR_SYMBOLS[opcode], b, result);
+                }
+            }
+            return stack[top];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            for (int instruction : code) {
+                if (text.length() > 0) text.append(' ');
+                switch (instruction & 0xFF) {
+                    case OP_CONST: text.append(constants[instruction >>> 8]); break;
+                    case OP_LOAD: text.append('$').append(instruction >>> 8); break;
+                    case OP_NEG: text.append("neg"); break;
+                    case OP_STORE: text.append("store#").append(instruction >>> 8); break;
+                    case OP_TEMP: text.append('#').append(instruction >>> 8); break;
+                    default: text.append(OPERATOR_SYMBOLS[instruction & 0xFF]);
+                }
+            }
+            return text.toString();
+        }
+    }
+
+    static final class ProgramBuilder {
+        private int[] code = new int[16];
+        private double[] constants = new double[8];
+        private int codeLength;
+        private int constantCount;
+        private int depth;
+        private int maxStack;
+        private final Set<Node> shared = new HashSet<>();
+        private final Map<Node, Integer> temps = new HashMap<>();
+
+        static Program build(Node root, boolean eliminateCommon) {
+            ProgramBuilder builder = new ProgramBuilder();
+            if (eliminateCommon) {
+                builder.findShared(root, new HashMap<>());
+            }
+            builder.expression(root);
+            return builder.build();
+        }
+
+        private void findShared(Node node, Map<Node, Integer> seen) {
+            if (node instanceof Constant || node instanceof Variable) {
+                return;
+            }
+            if (seen.merge(node, 1, Integer::sum) > 1) {
+                shared.add(node);
+                return;
+            }
+            if (node instanceof Negate) {
+                findShared(((Negate) node).operand, seen);
+            } else {
+                findShared(((Binary) node).left, seen);
+                findShared(((Binary) node).right, seen);
+            }
+        }
+
+        void expression(Node node) {
+            Integer temp = temps.get(node);
+            if (temp != null) {
+                emit(OP_TEMP | temp << 8, 1);
+                return;
+            }
+            node.emit(this);
+            if (shared.contains(node)) {
+                temp = temps.size();
+                temps.put(node, temp);
+                emit(OP_STORE | temp << 8, 0);
+            }
+        }
+
+        void constant(double value) {
+            int index = constantCount;
+            for (int i = 0; i < constantCount; i++) {
+                if (Double.compare(constants[i], value) == 0) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index == constantCount) {
+                if (constantCount == constants.length) constants = Arrays.copyOf(constants, constantCount * 2);
+                constants[constantCount++] = value;
+            }
+            emit(OP_CONST | index << 8, 1);
+        }
+
+        void load(int slot) {
+            emit(OP_LOAD | slot << 8, 1);
+        }
+
+        void negate() {
+            emit(OP_NEG, 0);
+        }
+
+        void operator(char operator) {
+            switch (operator) {
+                case '+': emit(OP_ADD, -1); break;
+                case '-': emit(OP_SUB, -1); break;
+                case '*': emit(OP_MUL, -1); break;
+                case '/': emit(OP_DIV, -1); break;
+                default: throw new IllegalArgumentException("Unknown operator: " + operator);
+            }
+        }
+
+        private void emit(int instruction, int stackChange) {
+            if (codeLength == code.length) code = Arrays.copyOf(code, codeLength * 2);
+            code[codeLength++] = instruction;
+            depth += stackChange;
+            maxStack = Math.max(maxStack, depth);
+        }
+
+        Program build() {
+            return new Program(Arrays.copyOf(code, codeLength), Arrays.copyOf(constants, constantCount), maxStack, 
+                    temps.size());
+        }
+    }
+
+    abstract static class Node {
+        abstract void emit(ProgramBuilder builder);
+
+        Node simplify() {
+            return this;
+        }
+
+        abstract void evaluate(double[][] columns, int from, int length, double[] out, double[][] buffers, int depth);
+
+        int height() {
+            return 1;
+        }
+    }
+
+    static final class Constant extends Node {
+        final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        void emit(ProgramBuilder builder) {
+            builder.constant(value);
+        }
+
+        @Override
+        void evaluate(double[][] columns, int from, int length, double[] out, double[][] buffers, int depth) {
+            Arrays.fill(out, 0, length, value);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Constant 
+                    && Double.doubleToLongBits(((Constant) other).value) == Double.doubleToLongBits(value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Double.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    static final class Variable extends Node {
+        final String name;
+        final int slot;
+
+        Variable(String name, int slot) {
+            this.name = name;
+            this.slot = slot;
+        }
+
+        @Override
+        void emit(ProgramBuilder builder) {
+            builder.load(slot);
+        }
+
+        @Override
+        void evaluate(double[][] columns, int from, int length, double[] out, double[][] buffers, int depth) {
+            System.arraycopy(columns[slot], from, out, 0, length);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Variable && ((Variable) other).slot == slot;
+        }
+
+        @Override
+        public int hashCode() {
+            return slot;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    static final class Negate extends Node {
+        final Node operand;
+        private final int hash;
+
+        Negate(Node operand) {
+            this.operand = operand;
+            this.hash = 31 * operand.hashCode() + 1;
+        }
+
+        @Override
+        void emit(ProgramBuilder builder) {
+            builder.expression(operand);
+            builder.negate();
+        }
+
+        @Override
+        Node simplify() {
+            Node simplified = operand.simplify();
+            if (simplified instanceof Constant) {
+                return new Constant(-((Constant) simplified).value);
+            }
+            if (simplified instanceof Negate) {
+                return ((Negate) simplified).operand;
+            }
+            return new Negate(simplified);
+        }
+
+        @Override
+        void evaluate(double[][] columns, int from, int length, double[] out, double[][] buffers, int depth) {
+            operand.evaluate(columns, from, length, out, buffers, depth);
+            for (int i = 0; i < length; i++) {
+                out[i] = -out[i];
+            }
+        }
+
+        @Override
+        int height() {
+            return operand.height();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Negate && other.hashCode() == hash && ((Negate) other).operand.equals(operand);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return "-" + operand;
+        }
+    }
+
+    static final class Binary extends Node {
+        final char operator;
+        final Node left;
+        final Node right;
+        private final int hash;
+
+        Binary(char operator, Node left, Node right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+            this.hash = (31 * left.hashCode() + right.hashCode()) * 31 + operator;
+        }
+
+        @Override
+        void emit(ProgramBuilder builder) {
+            builder.expression(left);
+            builder.expression(right);
+            builder.operator(operator);
+        }
+
+        @Override
+        Node simplify() {
+            Node a = left.simplify();
+            Node b = right.simplify();
+            if (a instanceof Constant && b instanceof Constant && !(operator == '/' && isZero(b))) {
+                return new Constant(applyOperation(((Constant) a).value, ((Constant) b).value, operator));
+            }
+
+            switch (operator) {
+                case '+':
+                    if (isNegativeZero(b)) return a;
+                    if (isNegativeZero(a)) return b;
+                    if (b instanceof Negate) return new Binary('-', a, ((Negate) b).operand).simplify();
+                    break;
+                case '-':
+                    if (isPositiveZero(b)) return a;
+                    if (b instanceof Negate) return new Binary('+', a, ((Negate) b).operand).simplify();
+                    break;
+                case '*':
+                    if (isOne(b)) return a;
+                    if (isOne(a)) return b;
+                    if (isMinusOne(b)) return new Negate(a).simplify();
+                    if (isMinusOne(a)) return new Negate(b).simplify();
+                    break;
+                case '/':
+                    if (isOne(b)) return a;
+                    if (isMinusOne(b)) return new Negate(a).simplify();
+                    break;
+            }
+            return a == left && b == right ? this : new Binary(operator, a, b);
+        }
+
+        private static boolean isZero(Node node) {
+            return node instanceof Constant && ((Constant) node).value == 0;
+        }
+
+        private static boolean isPositiveZero(Node node) {
+            return isZero(node) && Double.doubleToRawLongBits(((Constant) node).value) == 0;
+        }
+
+        private static boolean isNegativeZero(Node node) {
+            return isZero(node) && Double.doubleToRawLongBits(((Constant) node).value) != 0;
+        }
+
+        private static boolean isOne(Node node) {
+            return node instanceof Constant && ((Constant) node).value == 1;
+        }
+
+        private static boolean isMinusOne(Node node) {
+            return node instanceof Constant && ((Constant) node).value == -1;
+        }
+
+        @Override
+        void evaluate(double[][] columns, int from, int length, double[] out, double[][] buffers, int depth) {
+            left.evaluate(columns, from, length, out, buffers, depth);
+            double[] operand = buffers[depth];
+            right.evaluate(columns, from, length, operand, buffers, depth + 1);
+
+            switch (operator) {
+                case '+':
+                    for (int i = 0; i < length; i++) out[i] += operand[i];
+                    break;
+                case '-':
+                    for (int i = 0; i < length; i++) out[i] -= operand[i];
+                    break;
+                case '*':
+                    for (int i = 0; i < length; i++) out[i] *= operand[i];
+                    break;
+                case '/':
+                    for (int i = 0; i < length; i++) {
+                        if (operand[i] == 0) throw new ArithmeticException("Division by zero");
+                        out[i] /= operand[i];
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown operator: " + operator);
+            }
+        }
+
+        @Override
+        int height() {
+            return Math.max(left.height(), right.height() + 1);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Binary) || other.hashCode() != hash) {
+                return false;
+            }
+            Binary binary = (Binary) other;
+            return binary.operator == operator && binary.left.equals(left) && binary.right.equals(right);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " " + operator + " " + right + ")";
+        }
+    }
+
+    static final class ClassGenerator {
+        private static final int MAX_CODE_LENGTH = 65535;
+
+        private final Map<String, Integer> pool = new HashMap<>();
+        private final ByteWriter constants = new ByteWriter();
+        private int poolSize = 1;
+
+        static Evaluator generate(Program program) throws ReflectiveOperationException {
+            byte[] bytes = new ClassGenerator().classFile(program);
+            Class<?> generated = MethodHandles.lookup().defineHiddenClass(bytes, true).lookupClass();
+            return (Evaluator) generated.getConstructor().newInstance();
+        }
+
+        private byte[] classFile(Program program) {
+            int thisClass = classEntry("TextCalculator$GeneratedEvaluator");
+            int superClass = classEntry("java/lang/Object");
+            int evaluatorClass = classEntry("TextCalculator$Evaluator");
+            int objectInit = methodEntry("java/lang/Object", "<init>", "()V");
+            int code = utf8("Code");
+
+            ByteWriter constructor = new ByteWriter();
+            constructor.u1(0x2a);
+            constructor.u1(0xb7).u2(objectInit);
+            constructor.u1(0xb1);
+
+            ByteWriter body = new ByteWriter();
+            for (int instruction : program.code) {
+                int operand = instruction >>> 8;
+                switch (instruction & 0xFF) {
+                    case OP_CONST:
+                        body.u1(0x14).u2(doubleEntry(program.constants[operand]));
+                        break;
+                    case OP_LOAD:
+                        body.u1(0x2b);
+                        if (operand <= 5) {
+                            body.u1(0x03 + operand);
+                        } else if (operand < 128) {
+                            body.u1(0x10).u1(operand);
+                        } else if (operand <= Short.MAX_VALUE) {
+                            body.u1(0x11).u2(operand);
+                        } else {
+                            body.u1(0x13).u2(integerEntry(operand));
+                        }
+                        body.u1(0x31);
+                        break;
+                    case OP_NEG: body.u1(0x77); break;
+                    case OP_STORE:
+                        body.u1(0x5c);
+                        local(body, 0x39, 2 + 2 * operand);
+                        break;
+                    case OP_TEMP:
+                        local(body, 0x18, 2 + 2 * operand);
+                        break;
+                    case OP_ADD: body.u1(0x63); break;
+                    case OP_SUB: body.u1(0x67); break;
+                    case OP_MUL: body.u1(0x6b); break;
+                    case OP_DIV: body.u1(0xb8).u2(methodEntry("TextCalculator", "divide", "(DD)D")); break;
+                    default: throw new IllegalStateException("Unknown opcode: " + (instruction & 0xFF));
+                }
+            }
+            body.u1(0xaf);
+            if (body.length() > MAX_CODE_LENGTH) {
+                throw new IllegalStateException("Expression too large for code generation");
+            }
+
+            int init = utf8("<init>");
+            int initType = utf8("()V");
+            int apply = utf8("applyAsDouble");
+            int applyType = utf8("([D)D");
+
+            ByteWriter out = new ByteWriter();
+            out.u4(0xCAFEBABE).u2(0).u2(52);
+            out.u2(poolSize).bytes(constants);
+            out.u2(0x0030).u2(thisClass).u2(superClass);
+            out.u2(1).u2(evaluatorClass);
+            out.u2(0);
+            out.u2(2);
+            method(out, 0x0001, init, initType, code, 1, 1, constructor);
+            method(out, 0x0011, apply, applyType, code, 2 * program.maxStack + 2, 2 + 2 * program.temps, body);
+            out.u2(0);
+            return out.toByteArray();
+        }
+
+        private static void local(ByteWriter body, int opcode, int index) {
+            if (index < 256) {
+                body.u1(opcode).u1(index);
+            } else {
+                body.u1(0xc4).u1(opcode).u2(index);
+            }
+        }
+
+        private static void method(ByteWriter out, int access, int name, int type, int code, 
+                                   int maxStack, int maxLocals, ByteWriter body) {
+            out.u2(access).u2(name).u2(type);
+            out.u2(1);
+            out.u2(code).u4(12 + body.length());
+            out.u2(maxStack).u2(maxLocals);
+            out.u4(body.length()).bytes(body);
+            out.u2(0);
+            out.u2(0);
+        }
+
+        private int utf8(String value) {
+            Integer index = pool.get("U" + value);
+            if (index == null) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                constants.u1(1).u2(bytes.length).bytes(bytes, bytes.length);
+                index = add("U" + value, 1);
+            }
+            return index;
+        }
+
+        private int classEntry(String name) {
+            Integer index = pool.get("C" + name);
+            if (index == null) {
+                int nameIndex = utf8(name);
+                constants.u1(7).u2(nameIndex);
+                index = add("C" + name, 1);
+            }
+            return index;
+        }
+
+        private int methodEntry(String owner, String name, String type) {
+            String key = "M" + owner + "." + name + type;
+            Integer index = pool.get(key);
+            if (index == null) {
+                int ownerIndex = classEntry(owner);
+                int nameIndex = utf8(name);
+                int typeIndex = utf8(type);
+                constants.u1(12).u2(nameIndex).u2(typeIndex);
+                int nameAndType = add("N" + name + type, 1);
+                constants.u1(10).u2(ownerIndex).u2(nameAndType);
+                index = add(key, 1);
+            }
+            return index;
+        }
+
+        private int integerEntry(int value) {
+            Integer index = pool.get("I" + value);
+            if (index == null) {
+                constants.u1(3).u4(value);
+                index = add("I" + value, 1);
+            }
+            return index;
+        }
+
+        private int doubleEntry(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            Integer index = pool.get("D" + bits);
+            if (index == null) {
+                constants.u1(6).u4((int) (bits >>> 32)).u4((int) bits);
+                index = add("D" + bits, 2);
+            }
+            return index;
+        }
+
+        private int add(String key, int slots) {
+            int index = poolSize;
+            pool.put(key, index);
+            poolSize += slots;
+            if (poolSize > 65535) throw new IllegalStateException("Expression too large for code generation");
+            return index;
+        }
+    }
+
+    static final class ByteWriter {
+        private byte[] data = new byte[256];
+        private int length;
+
+        ByteWriter u1(int value) {
+            if (length == data.length) data = Arrays.copyOf(data, length * 2);
+            data[length++] = (byte) value;
+            return this;
+        }
+
+        ByteWriter u2(int value) {
+            return u1(value >>> 8).u1(value);
+        }
+
+        ByteWriter u4(int value) {
+            return u2(value >>> 16).u2(value);
+        }
+
+        ByteWriter bytes(byte[] bytes, int count) {
+            for (int i = 0; i < count; i++) {
+                u1(bytes[i]);
+            }
+            return this;
+        }
+
+        ByteWriter bytes(ByteWriter other) {
+            return bytes(other.data, other.length);
+        }
+
+        int length() {
+            return length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(data, length);
+        }
+    }
+
+    static class ExpressionCache {
+        private final int capacity;
+        private final LinkedHashMap<String, CompiledExpression> entries;
+        private long hits;
+        private long misses;
+
+        ExpressionCache(int capacity) {
+            this.capacity = capacity;
+            this.entries = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true);
+        }
+
+        CompiledExpression get(String expression) {
+            synchronized (this) {
+                CompiledExpression compiled = entries.get(expression);
+                if (compiled != null) {
+                    hits++;
+                    return compiled;
+                }
+                misses++;
+            }
+
+            CompiledExpression compiled = compileUncached(expression);
+            synchronized (this) {
+                entries.put(expression, compiled);
+                if (entries.size() > capacity) {
+                    Iterator<String> eldest = entries.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+            return compiled;
+        }
+
+        synchronized String describe() {
+            return "Expression cache: " + entries.size() + "/" + capacity + " entries, " 
+                    + hits + " hits, " + misses + " misses";
+        }
     }
 }
 
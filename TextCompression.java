@@ -1,17 +1,115 @@
-import java.util.Scanner;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 public class TextCompression {
     
+    static final int MAX_CODE_LENGTH = 24;
+    static final int LOOKUP_BITS = 11;
+    static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+    static final int MAX_BLOCK_SIZE = 1 << 26;
+    static final int STREAM_BUFFER_SIZE = 1 << 16;
+    static final int INDEX_MAGIC = 0x54434958;
+    static final int INDEX_TRAILER_SIZE = 12;
+    static final int CONTAINER_MAGIC = 0x5458435A;
+    static final int FORMAT_VERSION = 1;
+    static final int CONTAINER_HEADER_SIZE = 5;
+    static final int CODEC_STORED = 0;
+    static final int CODEC_SYMBOL = 1;
+    static final int CODEC_HUFFMAN = 2;
+    static final int CODEC_LZ = 3;
+    static final int CODEC_DEFLATE = 4;
+    static final int CODEC_AUTO = -1;
+    static final int[] AUTO_CANDIDATES = {CODEC_SYMBOL, CODEC_HUFFMAN, CODEC_DEFLATE, CODEC_LZ};
+    static final int AUTO_SAMPLE_SLICES = 4;
+    static final int AUTO_SLICE_SIZE = 16 * 1024;
+    static final int LZ_MIN_MATCH = 4;
+    static final int LZ_MAX_MATCH = 4096;
+    static final int LZ_HASH_BITS = 16;
+    static final int PREVIEW_LIMIT = 120;
+    static final Codec[] CODECS = {
+        new StoredCodec(), new SymbolCodec(), new HuffmanCodec(), new LzCodec(), new DeflateCodec()
+    };
+    
+    interface Codec {
+        int id();
+        
+        String name();
+        
+        void encode(byte[] data, int offset, int length, CompressionSettings settings, BitWriter writer);
+        
+        void decode(byte[] payload, int offset, int length, byte[] out, int rawLength);
+    }
+    
     public static void main(String[] args) {
-        Scanner scanner = new Scanner(System.in);
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            return;
+        }
+        
+        if ("bench".equals(options.mode)) {
+            Benchmark.run(options);
+            return;
+        }
+        
+        if ("extract".equals(options.mode)) {
+            runExtractCommand(options);
+            return;
+        }
+        
+        if (options.mode != null) {
+            runStreamCommand(options);
+            return;
+        }
         
         System.out.print("Enter text to compress: ");
-        String originalText = scanner.nextLine();
+        byte[] originalBytes;
+        try {
+            originalBytes = readLine(System.in);
+        } catch (IOException e) {
+            System.out.println("Error reading input: " + e.getMessage());
+            return;
+        }
         
-        if (originalText.isEmpty()) {
+        if (originalBytes.length == 0) {
             System.out.println("No text entered!");
             return;
         }
+        String originalText = new String(originalBytes, StandardCharsets.UTF_8);
         
         char[] uniqueChars;
         int[] frequencies;
@@ -27,35 +125,57 @@ public class TextCompression {
         
         compressedText = compressText(originalText, mappingTable);
         
-        decompressedText = decompressText(compressedText, mappingTable);
+        CompressionSettings settings = new CompressionSettings().withCodec(CODEC_SYMBOL);
+        settings.metrics = new CompressionMetrics();
+        CompressionMetrics decodeMetrics = new CompressionMetrics();
+        long started = System.nanoTime();
+        byte[] container = compressBytes(originalBytes, settings);
+        settings.metrics.wallNanos = System.nanoTime() - started;
+        String validationError = null;
+        try {
+            started = System.nanoTime();
+            byte[] decoded = decompressBytes(container, decodeMetrics);
+            decodeMetrics.wallNanos = System.nanoTime() - started;
+            decompressedText = new String(decoded, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            decompressedText = "";
+            validationError = e.getMessage();
+        }
+        
+        displayCompressionAnalysis(originalText, compressedText, decompressedText, container, 
+                                 validationError, uniqueChars, frequencies, mappingTable);
+        
+        int[] byteCounts = countBytes(originalBytes, 0, originalBytes.length);
+        HuffmanCode huffmanCode = buildHuffmanCode(byteCounts);
+        byte[] huffmanData = huffmanCompress(originalBytes, huffmanCode);
+        byte[] huffmanDecoded = huffmanDecompress(huffmanData);
         
-        displayCompressionAnalysis(originalText, compressedText, decompressedText, 
-                                 uniqueChars, frequencies, mappingTable);
+        displayHuffmanAnalysis(originalBytes, huffmanData, huffmanDecoded, byteCounts, huffmanCode);
         
-        scanner.close();
+        System.out.println("\n7. METRICS:");
+        settings.metrics.print(System.out, "compress");
+        decodeMetrics.print(System.out, "decompress");
+    }
+    
+    static byte[] readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        byte[] bytes = line.toByteArray();
+        return bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? Arrays.copyOf(bytes, bytes.length - 1) : bytes;
     }
     
     public static Object[] countCharacterFrequency(String text) {
-        char[] tempChars = new char[text.length()];
-        int[] tempFreqs = new int[text.length()];
+        int[] counts = new int[Character.MAX_VALUE + 1];
+        char[] firstSeen = new char[Math.min(text.length(), counts.length)];
         int uniqueCount = 0;
         
         for (int i = 0; i < text.length(); i++) {
             char currentChar = text.charAt(i);
-            boolean found = false;
-            
-            for (int j = 0; j < uniqueCount; j++) {
-                if (tempChars[j] == currentChar) {
-                    tempFreqs[j]++;
-                    found = true;
-                    break;
-                }
-            }
-            
-            if (!found) {
-                tempChars[uniqueCount] = currentChar;
-                tempFreqs[uniqueCount] = 1;
-                uniqueCount++;
+            if (counts[currentChar]++ == 0) {
+                firstSeen[uniqueCount++] = currentChar;
             }
         }
         
@@ -63,8 +183,8 @@ public class TextCompression {
         int[] resultFreqs = new int[uniqueCount];
         
         for (int i = 0; i < uniqueCount; i++) {
-            resultChars[i] = tempChars[i];
-            resultFreqs[i] = tempFreqs[i];
+            resultChars[i] = firstSeen[i];
+            resultFreqs[i] = counts[firstSeen[i]];
         }
         
         sortByFrequency(resultChars, resultFreqs);
@@ -73,18 +193,15 @@ public class TextCompression {
     }
     
     private static void sortByFrequency(char[] chars, int[] freqs) {
-        for (int i = 0; i < chars.length - 1; i++) {
-            for (int j = i + 1; j < chars.length; j++) {
-                if (freqs[j] > freqs[i]) {
-                    int tempFreq = freqs[i];
-                    freqs[i] = freqs[j];
-                    freqs[j] = tempFreq;
-                    
-                    char tempChar = chars[i];
-                    chars[i] = chars[j];
-                    chars[j] = tempChar;
-                }
-            }
+        long[] keys = new long[chars.length];
+        for (int i = 0; i < chars.length; i++) {
+            keys[i] = ((long) (Integer.MAX_VALUE - freqs[i]) << 32) | ((long) i << 16) | chars[i];
+        }
+        Arrays.sort(keys);
+        
+        for (int i = 0; i < keys.length; i++) {
+            chars[i] = (char) keys[i];
+            freqs[i] = Integer.MAX_VALUE - (int) (keys[i] >>> 32);
         }
     }
     
@@ -107,38 +224,75 @@ public class TextCompression {
     }
     
     public static String compressText(String text, String[][] mappingTable) {
-        StringBuilder compressedBuilder = new StringBuilder();
+        StringBuilder compressedBuilder = new StringBuilder(text.length() + text.length() / 2);
+        String[] codeByChar = buildEncodeTable(mappingTable);
         
         for (int i = 0; i < text.length(); i++) {
             char currentChar = text.charAt(i);
-            String code = findCodeForChar(currentChar, mappingTable);
-            compressedBuilder.append(code);
+            String code = currentChar < codeByChar.length ? codeByChar[currentChar] : null;
+            if (code != null) {
+                compressedBuilder.append(code);
+            } else {
+                compressedBuilder.append(currentChar);
+            }
         }
         
         return compressedBuilder.toString();
     }
     
-    private static String findCodeForChar(char c, String[][] mappingTable) {
+    private static String[] buildEncodeTable(String[][] mappingTable) {
+        int maxChar = -1;
         for (String[] mapping : mappingTable) {
-            if (mapping[0].charAt(0) == c) {
-                return mapping[1];
-            }
+            maxChar = Math.max(maxChar, mapping[0].charAt(0));
+        }
+        
+        String[] codeByChar = new String[maxChar + 1];
+        for (int i = mappingTable.length - 1; i >= 0; i--) {
+            codeByChar[mappingTable[i][0].charAt(0)] = mappingTable[i][1];
         }
-        return String.valueOf(c);
+        return codeByChar;
     }
     
-    private static char findCharForCode(String code, String[][] mappingTable) {
+    private static char[] buildDecodeTable(String[][] mappingTable, boolean numbered) {
+        int size = numbered ? 1 : 128;
         for (String[] mapping : mappingTable) {
-            if (mapping[1].equals(code)) {
-                return mapping[0].charAt(0);
+            if (numbered && isNumberedCode(mapping[1])) {
+                size = Math.max(size, Integer.parseInt(mapping[1].substring(1)) + 1);
+            }
+        }
+        
+        char[] charByCode = new char[size];
+        Arrays.fill(charByCode, '?');
+        for (int i = mappingTable.length - 1; i >= 0; i--) {
+            String code = mappingTable[i][1];
+            if (numbered && isNumberedCode(code)) {
+                charByCode[Integer.parseInt(code.substring(1))] = mappingTable[i][0].charAt(0);
+            } else if (!numbered && code.length() == 1 && code.charAt(0) < 128) {
+                charByCode[code.charAt(0)] = mappingTable[i][0].charAt(0);
+            }
+        }
+        return charByCode;
+    }
+    
+    private static boolean isNumberedCode(String code) {
+        if (code.length() < 2 || code.length() > 10 || code.charAt(0) != '~') {
+            return false;
+        }
+        if (code.charAt(1) == '0' && code.length() > 2) {
+            return false;
+        }
+        for (int i = 1; i < code.length(); i++) {
+            if (code.charAt(i) < '0' || code.charAt(i) > '9') {
+                return false;
             }
         }
-        return '?';
+        return true;
     }
     
     public static String decompressText(String compressedText, String[][] mappingTable) {
-        StringBuilder decompressedBuilder = new StringBuilder();
-        StringBuilder currentCode = new StringBuilder();
+        StringBuilder decompressedBuilder = new StringBuilder(compressedText.length());
+        char[] charBySymbol = buildDecodeTable(mappingTable, false);
+        char[] charByNumber = buildDecodeTable(mappingTable, true);
         
         for (int i = 0; i < compressedText.length(); i++) {
             char currentChar = compressedText.charAt(i);
@@ -146,21 +300,25 @@ public class TextCompression {
             if (currentChar == '@' || currentChar == '#' || currentChar == '$' || 
                 currentChar == '%' || currentChar == '&' || currentChar == '*' || 
                 currentChar == '+' || currentChar == '-' || currentChar == '=') {
-                decompressedBuilder.append(findCharForCode(String.valueOf(currentChar), mappingTable));
+                decompressedBuilder.append(charBySymbol[currentChar]);
             } 
             else if (currentChar == '~') {
+                int start = i + 1;
+                long number = 0;
+                boolean valid = true;
                 i++;
-                StringBuilder numberBuilder = new StringBuilder();
                 while (i < compressedText.length() && Character.isDigit(compressedText.charAt(i))) {
-                    numberBuilder.append(compressedText.charAt(i));
+                    char digit = compressedText.charAt(i);
+                    valid &= digit <= '9' && !(number == 0 && i > start);
+                    number = Math.min(Integer.MAX_VALUE, number * 10 + (digit - '0'));
                     i++;
                 }
                 i--;
-                String code = "~" + numberBuilder.toString();
-                decompressedBuilder.append(findCharForCode(code, mappingTable));
+                valid &= i >= start && number < charByNumber.length;
+                decompressedBuilder.append(valid ? charByNumber[(int) number] : '?');
             }
             else if (Character.isDigit(currentChar)) {
-                decompressedBuilder.append(findCharForCode(String.valueOf(currentChar), mappingTable));
+                decompressedBuilder.append(currentChar < 128 ? charBySymbol[currentChar] : '?');
             }
             else {
                 decompressedBuilder.append(currentChar);
@@ -170,67 +328,2192 @@ public class TextCompression {
         return decompressedBuilder.toString();
     }
     
-    public static void displayCompressionAnalysis(String originalText, String compressedText, 
-                                                String decompressedText, char[] uniqueChars, 
-                                                int[] frequencies, String[][] mappingTable) {
+    public static HuffmanCode buildHuffmanCode(int[] byteCounts) {
+        int[][] used = usedSymbols(byteCounts);
+        return HuffmanCode.build(used[0], used[1]);
+    }
+    
+    public static byte[] huffmanCompress(byte[] data, HuffmanCode code) {
+        BitWriter writer = new BitWriter(data.length / 2 + 64);
+        writer.writeVarint(data.length);
+        code.writeTable(writer);
         
-        System.out.println("\n=== COMPRESSION ANALYSIS ===");
+        for (byte b : data) {
+            code.encode(writer, b & 0xFF);
+        }
         
-        System.out.println("\n1. CHARACTER FREQUENCY TABLE:");
-        System.out.println("Char\tFrequency");
-        System.out.println("----\t---------");
-        for (int i = 0; i < uniqueChars.length; i++) {
-            System.out.println("'" + uniqueChars[i] + "'\t" + frequencies[i]);
+        return writer.toByteArray();
+    }
+    
+    public static byte[] huffmanDecompress(byte[] data) {
+        BitReader reader = new BitReader(data, 0, data.length);
+        int length = reader.readVarint();
+        HuffmanCode code = HuffmanCode.readTable(reader, 256);
+        
+        byte[] decoded = new byte[length];
+        code.decodeBytes(reader, decoded, 0, length);
+        return decoded;
+    }
+    
+    public static byte[] compressBuffer(ByteBuffer data, CompressionSettings settings) {
+        if (data.hasArray()) {
+            int start = data.arrayOffset() + data.position();
+            byte[] slice = start == 0 && data.remaining() == data.array().length 
+                         ? data.array() : Arrays.copyOfRange(data.array(), start, start + data.remaining());
+            data.position(data.limit());
+            return compressBytes(slice, settings);
         }
         
-        System.out.println("\n2. COMPRESSION MAPPING:");
-        System.out.println("Original\tCode");
-        System.out.println("--------\t----");
-        for (String[] mapping : mappingTable) {
-            String displayChar = mapping[0].equals(" ") ? "[space]" : 
-                               mapping[0].equals("\t") ? "[tab]" : mapping[0];
-            System.out.println("'" + displayChar + "'\t\t" + mapping[1]);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.remaining() / 2 + 64);
+        byte[] chunk = new byte[Math.min(settings.blockSize, Math.max(1, data.remaining()))];
+        try (BlockCompressorOutputStream compressor = new BlockCompressorOutputStream(out, settings)) {
+            while (data.hasRemaining()) {
+                int length = Math.min(chunk.length, data.remaining());
+                data.get(chunk, 0, length);
+                compressor.write(chunk, 0, length);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("In-memory compression failed", e);
         }
+        return out.toByteArray();
+    }
+    
+    public static void runStreamCommand(Options options) {
+        boolean toStdout = options.outputPath.equals("-");
         
-        System.out.println("\n3. TEXT COMPARISON:");
-        System.out.println("Original:    " + formatForDisplay(originalText));
-        System.out.println("Compressed:  " + formatForDisplay(compressedText));
-        System.out.println("Decompressed: " + formatForDisplay(decompressedText));
+        try (InputStream in = options.inputPath.equals("-") ? System.in
+                 : Files.newInputStream(Paths.get(options.inputPath));
+             OutputStream out = toStdout ? System.out : Files.newOutputStream(Paths.get(options.outputPath))) {
+            CompressionMetrics metrics = options.metrics || options.metricsJson != null 
+                                       ? new CompressionMetrics() : CompressionMetrics.DISABLED;
+            options.settings.metrics = metrics;
+            long started = System.nanoTime();
+            long[] sizes;
+            if (options.mode.equals("compress")) {
+                sizes = options.threads > 1
+                      ? compressParallel(in, out, options.settings, options.threads)
+                      : compressStream(in, out, options.settings);
+            } else {
+                sizes = options.threads > 1 && !options.inputPath.equals("-")
+                      ? decompressParallel(Paths.get(options.inputPath), out, options.threads, metrics)
+                      : decompressStream(in, out, metrics);
+            }
+            metrics.wallNanos = System.nanoTime() - started;
+            
+            if (!toStdout) {
+                double seconds = metrics.wallNanos / 1e9;
+                System.out.println((options.mode.equals("compress") ? "Compressed " : "Decompressed ") + 
+                                  sizes[0] + " bytes into " + sizes[1] + " bytes in " + 
+                                  String.format("%.2f", seconds) + " s");
+            }
+            reportMetrics(options, metrics);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+    
+    static void reportMetrics(Options options, CompressionMetrics metrics) throws IOException {
+        PrintStream console = options.outputPath.equals("-") ? System.err : System.out;
+        if (options.metrics) {
+            metrics.print(console, options.mode);
+        }
+        if (options.metricsJson == null) {
+            return;
+        }
+        if (options.metricsJson.equals("-")) {
+            console.println(metrics.toJson(options.mode));
+        } else {
+            Files.write(Paths.get(options.metricsJson), 
+                        (metrics.toJson(options.mode) + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+    
+    public static void runExtractCommand(Options options) {
+        boolean toStdout = options.outputPath.equals("-");
         
-        System.out.println("\n4. COMPRESSION STATISTICS:");
-        int originalSize = originalText.length();
-        int compressedSize = compressedText.length();
-        double compressionRatio = (double) compressedSize / originalSize;
-        double efficiencyPercentage = (1 - compressionRatio) * 100;
+        try (CompressedFile file = CompressedFile.open(Paths.get(options.inputPath));
+             OutputStream out = toStdout ? System.out : Files.newOutputStream(Paths.get(options.outputPath))) {
+            CompressionMetrics metrics = options.metrics || options.metricsJson != null 
+                                       ? new CompressionMetrics() : CompressionMetrics.DISABLED;
+            file.metrics = metrics;
+            long started = System.nanoTime();
+            byte[] slice = file.read(options.offset, options.length);
+            out.write(slice);
+            out.flush();
+            metrics.wallNanos = System.nanoTime() - started;
+            metrics.returnedBytes = slice.length;
+            
+            if (!toStdout) {
+                double millis = (System.nanoTime() - started) / 1e6;
+                System.out.println("Extracted " + slice.length + " bytes at offset " + options.offset + 
+                                  " by decoding " + file.blocksDecoded + " of " + file.index.count + 
+                                  " blocks in " + String.format("%.2f", millis) + " ms");
+            }
+            reportMetrics(options, metrics);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+    
+    public static byte[] decompressRange(Path path, long offset, int length) throws IOException {
+        try (CompressedFile file = CompressedFile.open(path)) {
+            return file.read(offset, length);
+        }
+    }
+    
+    public static long[] compressStream(InputStream in, OutputStream out, CompressionSettings settings) throws IOException {
+        CountingOutputStream counted = new CountingOutputStream(out);
+        BlockCompressorOutputStream compressor = new BlockCompressorOutputStream(counted, settings);
+        long total = copy(in, compressor);
+        compressor.finish();
+        return new long[]{total, counted.count};
+    }
+    
+    public static long[] compressParallel(InputStream in, OutputStream out, CompressionSettings settings, 
+                                          int threads) throws IOException {
+        CountingOutputStream counted = new CountingOutputStream(new BufferedOutputStream(out, STREAM_BUFFER_SIZE));
+        BlockIndex index = new BlockIndex();
+        ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long total = 0;
+        writeContainerHeader(counted);
         
-        System.out.println("Original size: " + originalSize + " characters");
-        System.out.println("Compressed size: " + compressedSize + " characters");
-        System.out.println("Compression ratio: " + String.format("%.2f", compressionRatio) + 
-                          " (" + compressedSize + "/" + originalSize + ")");
-        System.out.println("Efficiency: " + String.format("%.1f", efficiencyPercentage) + "% reduction");
+        try {
+            while (true) {
+                byte[] block = new byte[settings.blockSize];
+                int filled = in.readNBytes(block, 0, settings.blockSize);
+                if (filled == 0) {
+                    break;
+                }
+                total += filled;
+                pending.add(pool.submit(() -> encodeFrame(block, 0, filled, settings)));
+                
+                if (pending.size() >= 2 * threads) {
+                    writeFrame(awaitBlock(pending.poll()), counted, index);
+                }
+            }
+            while (!pending.isEmpty()) {
+                writeFrame(awaitBlock(pending.poll()), counted, index);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
         
-        System.out.println("\n5. VALIDATION:");
-        if (originalText.equals(decompressedText)) {
-            System.out.println("✓ SUCCESS: Decompressed text matches original!");
-        } else {
-            System.out.println("✗ ERROR: Decompressed text doesn't match original!");
-            System.out.println("Difference at position: " + findFirstDifference(originalText, decompressedText));
+        writeVarint(counted, 0);
+        index.write(counted, counted.count - 1);
+        counted.flush();
+        return new long[]{total, counted.count};
+    }
+    
+    public static long[] decompressParallel(Path path, OutputStream out, int threads, 
+                                            CompressionMetrics metrics) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            BlockIndex index = BlockIndex.read(channel);
+            ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            long total = 0;
+            
+            try {
+                for (int block = 0; block < index.count; block++) {
+                    long offset = index.frameOffsets[block];
+                    int frameLength = index.frameLengths[block];
+                    int rawLength = index.rawLengths[block];
+                    pending.add(pool.submit(() -> decodeFrame(channel, offset, frameLength, rawLength, metrics)));
+                    
+                    if (pending.size() >= 2 * threads) {
+                        byte[] decoded = awaitBlock(pending.poll());
+                        out.write(decoded);
+                        total += decoded.length;
+                    }
+                }
+                while (!pending.isEmpty()) {
+                    byte[] decoded = awaitBlock(pending.poll());
+                    out.write(decoded);
+                    total += decoded.length;
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+            
+            out.flush();
+            return new long[]{channel.size(), total};
         }
     }
     
-    private static String formatForDisplay(String text) {
-        return text.replace(" ", "[space]")
-                  .replace("\t", "[tab]")
-                  .replace("\n", "[newline]");
+    public static byte[] compressBytes(byte[] data, CompressionSettings settings) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+        try (BlockCompressorOutputStream compressor = new BlockCompressorOutputStream(out, settings)) {
+            compressor.write(data, 0, data.length);
+        } catch (IOException e) {
+            throw new IllegalStateException("In-memory compression failed", e);
+        }
+        return out.toByteArray();
+    }
+    
+    public static byte[] decompressBytes(byte[] container) throws IOException {
+        return decompressBytes(container, CompressionMetrics.DISABLED);
+    }
+    
+    public static byte[] decompressBytes(byte[] container, CompressionMetrics metrics) throws IOException {
+        try (BlockDecompressorInputStream in = new BlockDecompressorInputStream(new ByteArrayInputStream(container), 
+                                                                                 metrics)) {
+            return in.readAllBytes();
+        }
+    }
+    
+    static void writeContainerHeader(OutputStream out) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(CONTAINER_HEADER_SIZE);
+        header.putInt(CONTAINER_MAGIC).put((byte) FORMAT_VERSION);
+        out.write(header.array());
+    }
+    
+    static void checkContainerHeader(byte[] header, int length) throws IOException {
+        if (length < CONTAINER_HEADER_SIZE || ByteBuffer.wrap(header).getInt(0) != CONTAINER_MAGIC) {
+            throw new IOException("Not a TextCompression container");
+        }
+        if (header[4] != FORMAT_VERSION) {
+            throw new IOException("Unsupported container version " + (header[4] & 0xFF));
+        }
+    }
+    
+    static int checksum(byte[] data, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(data, offset, length);
+        return (int) crc.getValue();
+    }
+    
+    static byte[] encodeFrame(byte[] data, int offset, int length, CompressionSettings settings) {
+        CompressionMetrics metrics = settings.metrics;
+        long allocatedBefore = metrics.allocated();
+        if (metrics.enabled) {
+            long started = metrics.start();
+            metrics.entropyBits.add(entropyBits(countBytes(data, offset, length), length));
+            metrics.lap(metrics.modelNanos, started);
+        }
+        
+        long started = metrics.start();
+        int codec = settings.codec == CODEC_AUTO ? chooseCodec(data, offset, length, settings) : settings.codec;
+        metrics.lap(metrics.modelNanos, started);
+        byte[] payload = data;
+        int payloadOffset = offset;
+        int payloadLength = length;
+        if (codec != CODEC_STORED) {
+            BitWriter writer = new BitWriter(length / 2 + 1024);
+            codecFor(codec).encode(data, offset, length, settings, writer);
+            if (writer.finish() < length) {
+                payload = writer.array();
+                payloadOffset = 0;
+                payloadLength = writer.finish();
+            } else {
+                codec = CODEC_STORED;
+            }
+        }
+        
+        int headerLength = frameHeaderLength(length, payloadLength);
+        byte[] frame = new byte[headerLength + payloadLength];
+        int position = putVarint(frame, 0, length);
+        frame[position++] = (byte) codec;
+        position = putVarint(frame, position, payloadLength);
+        long checksumStarted = metrics.start();
+        ByteBuffer.wrap(frame, position, 4).putInt(checksum(data, offset, length));
+        metrics.lap(metrics.checksumNanos, checksumStarted);
+        System.arraycopy(payload, payloadOffset, frame, headerLength, payloadLength);
+        
+        metrics.recordBlock(codec, length, frame.length);
+        metrics.addAllocated(allocatedBefore);
+        return frame;
+    }
+    
+    static double entropyBits(int[] counts, int length) {
+        double bits = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                bits -= count * (Math.log((double) count / length) / Math.log(2));
+            }
+        }
+        return bits;
+    }
+    
+    static int frameHeaderLength(int rawLength, int payloadLength) {
+        return varintLength(rawLength) + 1 + varintLength(payloadLength) + 4;
+    }
+    
+    static byte[] decodeFrame(FileChannel channel, long offset, int frameLength, int rawLength, 
+                              CompressionMetrics metrics) throws IOException {
+        long allocatedBefore = metrics.allocated();
+        ByteBuffer frame = ByteBuffer.allocate(frameLength);
+        while (frame.hasRemaining()) {
+            if (channel.read(frame, offset + frame.position()) < 0) {
+                throw new EOFException("Unexpected end of compressed file");
+            }
+        }
+        metrics.addAllocated(allocatedBefore);
+        return decodeFrame(frame.array(), frameLength, rawLength, offset, metrics);
+    }
+    
+    static byte[] decodeFrame(byte[] frame, int frameLength, int rawLength, long offset, 
+                              CompressionMetrics metrics) throws IOException {
+        long allocatedBefore = metrics.allocated();
+        int codec;
+        int payloadLength;
+        try {
+            BitReader reader = new BitReader(frame, 0, frameLength);
+            if (reader.readVarint() != rawLength) {
+                throw new IOException("Block index does not match block header at offset " + offset);
+            }
+            codec = reader.readBits(8);
+            payloadLength = reader.readVarint();
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt block header at offset " + offset, e);
+        }
+        
+        int headerLength = frameHeaderLength(rawLength, payloadLength);
+        if (headerLength + payloadLength != frameLength) {
+            throw new IOException("Block index does not match block header at offset " + offset);
+        }
+        byte[] decoded = new byte[rawLength];
+        int expected = ByteBuffer.wrap(frame).getInt(headerLength - 4);
+        decodePayload(codec, frame, headerLength, payloadLength, decoded, rawLength, expected, metrics);
+        metrics.addAllocated(allocatedBefore);
+        return decoded;
+    }
+    
+    static void writeFrame(byte[] frame, OutputStream out, BlockIndex index) throws IOException {
+        BitReader header = new BitReader(frame, 0, frame.length);
+        index.add(header.readVarint(), frame.length);
+        out.write(frame);
+    }
+    
+    private static byte[] awaitBlock(Future<byte[]> block) throws IOException {
+        try {
+            return block.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a block");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+    
+    public static long[] decompressStream(InputStream in, OutputStream out, CompressionMetrics metrics) throws IOException {
+        BlockDecompressorInputStream decompressor = new BlockDecompressorInputStream(in, metrics);
+        long total = copy(decompressor, out);
+        out.flush();
+        return new long[]{decompressor.compressedBytes, total};
+    }
+    
+    private static long copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            total += read;
+        }
+        return total;
+    }
+    
+    static Codec codecFor(int id) {
+        if (id < 0 || id >= CODECS.length) {
+            throw new IllegalArgumentException("Unknown codec id: " + id);
+        }
+        return CODECS[id];
+    }
+    
+    static int chooseCodec(byte[] data, int offset, int length, CompressionSettings settings) {
+        byte[] sample = data;
+        int sampleOffset = offset;
+        int sampleLength = length;
+        if (length > AUTO_SAMPLE_SLICES * AUTO_SLICE_SIZE) {
+            sample = new byte[AUTO_SAMPLE_SLICES * AUTO_SLICE_SIZE];
+            sampleOffset = 0;
+            sampleLength = sample.length;
+            int stride = (length - AUTO_SLICE_SIZE) / (AUTO_SAMPLE_SLICES - 1);
+            for (int slice = 0; slice < AUTO_SAMPLE_SLICES; slice++) {
+                System.arraycopy(data, offset + slice * stride, sample, slice * AUTO_SLICE_SIZE, AUTO_SLICE_SIZE);
+            }
+        }
+        
+        int best = CODEC_STORED;
+        double bestSize = sampleLength;
+        BitWriter writer = new BitWriter(sampleLength / 2 + 1024);
+        CompressionSettings trial = settings.withCodec(settings.codec);
+        trial.metrics = CompressionMetrics.DISABLED;
+        for (int candidate : AUTO_CANDIDATES) {
+            writer.reset();
+            CODECS[candidate].encode(sample, sampleOffset, sampleLength, trial, writer);
+            int size = writer.finish();
+            if (size < bestSize * 0.98) {
+                best = candidate;
+                bestSize = size;
+            }
+        }
+        return best;
+    }
+    
+    static int[] countBytes(byte[] data, int offset, int length) {
+        int[] counts = new int[256];
+        for (int i = offset; i < offset + length; i++) {
+            counts[data[i] & 0xFF]++;
+        }
+        return counts;
+    }
+    
+    static int[][] usedSymbols(int[] counts) {
+        int distinct = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                distinct++;
+            }
+        }
+        int[] symbols = new int[distinct];
+        int[] frequencies = new int[distinct];
+        for (int symbol = 0, i = 0; symbol < counts.length; symbol++) {
+            if (counts[symbol] > 0) {
+                symbols[i] = symbol;
+                frequencies[i++] = counts[symbol];
+            }
+        }
+        return new int[][]{symbols, frequencies};
+    }
+    
+    static void encodeLz(byte[] data, int offset, int length, CompressionSettings settings, BitWriter writer) {
+        CompressionMetrics metrics = settings.metrics;
+        long started = metrics.start();
+        int[] matchLengths = new int[length];
+        int[] values = new int[length];
+        int tokens = findMatches(data, offset, length, settings, matchLengths, values);
+        started = metrics.lap(metrics.modelNanos, started);
+        
+        int[] literalCounts = new int[256 + 64];
+        int[] distanceCounts = new int[64];
+        for (int i = 0; i < tokens; i++) {
+            if (matchLengths[i] == 0) {
+                literalCounts[values[i]]++;
+            } else {
+                literalCounts[256 + bucketOf(matchLengths[i] - LZ_MIN_MATCH)]++;
+                distanceCounts[bucketOf(values[i] - 1)]++;
+            }
+        }
+        
+        int[][] literals = usedSymbols(literalCounts);
+        int[][] distances = usedSymbols(distanceCounts);
+        HuffmanCode literalCode = HuffmanCode.build(literals[0], literals[1]);
+        HuffmanCode distanceCode = HuffmanCode.build(distances[0], distances[1]);
+        literalCode.writeTable(writer);
+        distanceCode.writeTable(writer);
+        started = metrics.lap(metrics.tableNanos, started);
+        
+        for (int i = 0; i < tokens; i++) {
+            if (matchLengths[i] == 0) {
+                literalCode.encode(writer, values[i]);
+            } else {
+                int lengthValue = matchLengths[i] - LZ_MIN_MATCH;
+                int lengthBucket = bucketOf(lengthValue);
+                literalCode.encode(writer, 256 + lengthBucket);
+                writer.writeBits(lengthValue - bucketBase(lengthBucket), bucketExtraBits(lengthBucket));
+                
+                int distanceValue = values[i] - 1;
+                int distanceBucket = bucketOf(distanceValue);
+                distanceCode.encode(writer, distanceBucket);
+                writer.writeBits(distanceValue - bucketBase(distanceBucket), bucketExtraBits(distanceBucket));
+            }
+        }
+        metrics.lap(metrics.encodeNanos, started);
+    }
+    
+    static int findMatches(byte[] data, int offset, int length, CompressionSettings settings, 
+                           int[] matchLengths, int[] values) {
+        int[] head = new int[1 << LZ_HASH_BITS];
+        Arrays.fill(head, -1);
+        int windowSize = settings.windowSize;
+        while (windowSize > 1024 && windowSize / 2 >= length) {
+            windowSize /= 2;
+        }
+        int windowMask = windowSize - 1;
+        int[] previous = new int[windowSize];
+        int maxChain = settings.maxChain();
+        int niceLength = settings.niceLength();
+        int goodLength = settings.level >= 4 ? niceLength / 2 : 0;
+        
+        int end = offset + length;
+        int tokens = 0;
+        int position = offset;
+        long deferred = -1;
+        while (position < end) {
+            long match = 0;
+            if (position + LZ_MIN_MATCH <= end) {
+                match = deferred >= 0 ? deferred 
+                      : longestMatch(data, position, end, head[lzHash(data, position)], previous, 
+                                     windowMask, maxChain, niceLength);
+                insertPosition(data, position, head, previous, windowMask);
+                deferred = -1;
+                
+                if ((int) (match >>> 32) >= LZ_MIN_MATCH && (int) (match >>> 32) < goodLength 
+                        && position + 1 + LZ_MIN_MATCH <= end) {
+                    long next = longestMatch(data, position + 1, end, head[lzHash(data, position + 1)], previous, 
+                                             windowMask, maxChain >> 2, niceLength);
+                    if ((int) (next >>> 32) > (int) (match >>> 32)) {
+                        deferred = next;
+                        match = 0;
+                    }
+                }
+            }
+            
+            int matchLength = (int) (match >>> 32);
+            if (matchLength >= LZ_MIN_MATCH) {
+                matchLengths[tokens] = matchLength;
+                values[tokens++] = (int) match;
+                int last = Math.min(position + matchLength, end - LZ_MIN_MATCH + 1);
+                for (int p = position + 1; p < last; p++) {
+                    insertPosition(data, p, head, previous, windowMask);
+                }
+                position += matchLength;
+            } else {
+                matchLengths[tokens] = 0;
+                values[tokens++] = data[position] & 0xFF;
+                position++;
+            }
+        }
+        return tokens;
     }
     
-    private static int findFirstDifference(String s1, String s2) {
-        int minLength = Math.min(s1.length(), s2.length());
-        for (int i = 0; i < minLength; i++) {
-            if (s1.charAt(i) != s2.charAt(i)) {
-                return i;
+    private static long longestMatch(byte[] data, int position, int end, int candidate, int[] previous, 
+                                     int windowMask, int maxChain, int niceLength) {
+        int limit = Math.min(LZ_MAX_MATCH, end - position);
+        int bestLength = LZ_MIN_MATCH - 1;
+        int bestDistance = 0;
+        
+        for (int chain = maxChain; candidate >= 0 && chain > 0; chain--) {
+            int distance = position - candidate;
+            if (distance > windowMask) {
+                break;
+            }
+            if (data[candidate + bestLength] == data[position + bestLength]) {
+                int matched = Arrays.mismatch(data, candidate, candidate + limit, data, position, position + limit);
+                if (matched < 0) {
+                    matched = limit;
+                }
+                if (matched > bestLength) {
+                    bestLength = matched;
+                    bestDistance = distance;
+                    if (matched >= niceLength || matched == limit) {
+                        break;
+                    }
+                }
+            }
+            int next = previous[candidate & windowMask];
+            if (next >= candidate) {
+                break;
+            }
+            candidate = next;
+        }
+        
+        return bestDistance == 0 ? 0 : ((long) bestLength << 32) | bestDistance;
+    }
+    
+    private static void insertPosition(byte[] data, int position, int[] head, int[] previous, int windowMask) {
+        int hash = lzHash(data, position);
+        previous[position & windowMask] = head[hash];
+        head[hash] = position;
+    }
+    
+    private static int lzHash(byte[] data, int position) {
+        int word = (data[position] & 0xFF) | (data[position + 1] & 0xFF) << 8 
+                 | (data[position + 2] & 0xFF) << 16 | (data[position + 3] & 0xFF) << 24;
+        return (word * 0x9E3779B1) >>> (32 - LZ_HASH_BITS);
+    }
+    
+    static int bucketOf(int value) {
+        if (value < 16) {
+            return value;
+        }
+        int bits = 31 - Integer.numberOfLeadingZeros(value);
+        return 16 + ((bits - 4) << 1) + ((value >>> (bits - 1)) & 1);
+    }
+    
+    static int bucketExtraBits(int bucket) {
+        return bucket < 16 ? 0 : ((bucket - 16) >> 1) + 3;
+    }
+    
+    static int bucketBase(int bucket) {
+        if (bucket < 16) {
+            return bucket;
+        }
+        return (2 | (bucket & 1)) << bucketExtraBits(bucket);
+    }
+    
+    private static void decodeLz(byte[] payload, int offset, int length, byte[] out, int rawLength) {
+        BitReader reader = new BitReader(payload, offset, length);
+        HuffmanCode literalCode = HuffmanCode.readTable(reader, 256 + 64);
+        HuffmanCode distanceCode = HuffmanCode.readTable(reader, 64);
+        
+        int position = 0;
+        while (position < rawLength) {
+            long literals = literalCode.decodeLiterals(reader, out, position, rawLength);
+            position = (int) literals;
+            int symbol = (int) (literals >> 32);
+            if (symbol < 0) {
+                break;
+            }
+            
+            int lengthBucket = symbol - 256;
+            int matchLength = bucketBase(lengthBucket) + reader.readBits(bucketExtraBits(lengthBucket)) + LZ_MIN_MATCH;
+            int distanceBucket = distanceCode.decode(reader);
+            int distance = bucketBase(distanceBucket) + reader.readBits(bucketExtraBits(distanceBucket)) + 1;
+            if (distance > position || matchLength > rawLength - position) {
+                throw new IllegalArgumentException("Match points outside the block");
+            }
+            
+            int copied = Math.min(distance, matchLength);
+            System.arraycopy(out, position - distance, out, position, copied);
+            while (copied < matchLength) {
+                int chunk = Math.min(copied, matchLength - copied);
+                System.arraycopy(out, position, out, position + copied, chunk);
+                copied += chunk;
+            }
+            position += matchLength;
+        }
+    }
+    
+    private static void encodeSymbolRanks(byte[] data, int offset, int length, int[] symbols, 
+                                          int[] frequencies, BitWriter writer) {
+        long[] keys = new long[symbols.length];
+        for (int i = 0; i < symbols.length; i++) {
+            keys[i] = ((long) (Integer.MAX_VALUE - frequencies[i]) << 32) | symbols[i];
+        }
+        Arrays.sort(keys);
+        
+        int[] rankBySymbol = new int[256];
+        writer.writeVarint(keys.length);
+        for (int rank = 0; rank < keys.length; rank++) {
+            int symbol = (int) keys[rank] & 0xFF;
+            rankBySymbol[symbol] = rank;
+            writer.writeBits(symbol, 8);
+        }
+        for (int i = offset; i < offset + length; i++) {
+            int rank = rankBySymbol[data[i] & 0xFF];
+            if (rank < 15) {
+                writer.writeBits(rank, 4);
+            } else {
+                writer.writeBits(0xF00 | (rank - 15), 12);
+            }
+        }
+    }
+    
+    static void decodePayload(int codec, byte[] payload, int offset, int length, byte[] out, int rawLength, 
+                              int expectedChecksum, CompressionMetrics metrics) throws IOException {
+        if (codec >= CODECS.length) {
+            throw new IOException("Unknown codec id " + codec + " in compressed block");
+        }
+        long started = metrics.start();
+        try {
+            CODECS[codec].decode(payload, offset, length, out, rawLength);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Corrupt compressed block: " + e.getMessage(), e);
+        }
+        started = metrics.lap(metrics.decodeNanos, started);
+        
+        if (checksum(out, 0, rawLength) != expectedChecksum) {
+            throw new IOException("Checksum mismatch in compressed block");
+        }
+        metrics.lap(metrics.checksumNanos, started);
+        metrics.recordBlock(codec, rawLength, frameHeaderLength(rawLength, length) + length);
+    }
+    
+    private static void decodeSymbolRanks(byte[] payload, int offset, int length, byte[] out, int rawLength) {
+        BitReader reader = new BitReader(payload, offset, length);
+        int symbolCount = reader.readVarint();
+        if (symbolCount < 1 || symbolCount > 256) {
+            throw new IllegalArgumentException("Invalid symbol count: " + symbolCount);
+        }
+        byte[] symbolByRank = new byte[symbolCount];
+        for (int rank = 0; rank < symbolByRank.length; rank++) {
+            symbolByRank[rank] = (byte) reader.readBits(8);
+        }
+        
+        for (int i = 0; i < rawLength; i++) {
+            int rank = reader.readBits(4);
+            if (rank == 15) {
+                rank += reader.readBits(8);
+            }
+            out[i] = symbolByRank[rank];
+        }
+    }
+    
+    static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+    
+    static int putVarint(byte[] target, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            target[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[position++] = (byte) value;
+        return position;
+    }
+    
+    static int varintLength(int value) {
+        return (38 - Integer.numberOfLeadingZeros(value | 1)) / 7;
+    }
+    
+    static int readVarint(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Unexpected end of compressed stream");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in compressed stream");
+    }
+    
+    public static void displayHuffmanAnalysis(byte[] originalBytes, byte[] huffmanData, 
+                                            byte[] decodedBytes, int[] byteCounts, HuffmanCode code) {
+        
+        System.out.println("\n6. HUFFMAN CODING (UTF-8 bytes):");
+        System.out.println("Byte\tFrequency\tBits\tCode");
+        System.out.println("----\t---------\t----\t----");
+        long[] ranked = new long[256];
+        for (int b = 0; b < 256; b++) {
+            ranked[b] = ((long) (Integer.MAX_VALUE - byteCounts[b]) << 8) | b;
+        }
+        Arrays.sort(ranked);
+        
+        long payloadBits = 0;
+        for (long entry : ranked) {
+            int b = (int) entry & 0xFF;
+            if (byteCounts[b] == 0) {
+                break;
+            }
+            int length = code.lengthOf(b);
+            payloadBits += (long) length * byteCounts[b];
+            String display = b >= 0x20 && b < 0x7F ? "'" + formatForDisplay(String.valueOf((char) b)) + "'" 
+                           : String.format("0x%02X", b);
+            System.out.println(display + "\t" + byteCounts[b] + "\t\t" + length + "\t" + code.codeString(b));
+        }
+        
+        double ratio = (double) huffmanData.length / originalBytes.length;
+        
+        System.out.println("Original size: " + originalBytes.length + " bytes (UTF-8)");
+        System.out.println("Huffman size: " + huffmanData.length + " bytes (" + 
+                          (huffmanData.length - (payloadBits + 7) / 8) + " header, " + 
+                          (payloadBits + 7) / 8 + " payload)");
+        System.out.println("Average code length: " + 
+                          String.format("%.3f", (double) payloadBits / originalBytes.length) + " bits/byte");
+        System.out.println("Compression ratio: " + String.format("%.2f", ratio) + 
+                          " (" + huffmanData.length + "/" + originalBytes.length + ")");
+        System.out.println("Efficiency: " + String.format("%.1f", (1 - ratio) * 100) + "% reduction");
+        
+        int difference = Arrays.mismatch(originalBytes, decodedBytes);
+        if (difference == -1) {
+            System.out.println("✓ SUCCESS: Huffman round-trip matches original!");
+        } else {
+            System.out.println("✗ ERROR: Huffman round-trip doesn't match original!");
+            System.out.println("Difference at byte: " + difference);
+        }
+    }
+    
+    public static void displayCompressionAnalysis(String originalText, String compressedText, 
+                                                String decompressedText, byte[] container, 
+                                                String validationError, char[] uniqueChars, 
+                                                int[] frequencies, String[][] mappingTable) {
+        
+        System.out.println("\n=== COMPRESSION ANALYSIS ===");
+        
+        System.out.println("\n1. CHARACTER FREQUENCY TABLE:");
+        System.out.println("Char\tFrequency");
+        System.out.println("----\t---------");
+        for (int i = 0; i < uniqueChars.length; i++) {
+            System.out.println("'" + uniqueChars[i] + "'\t" + frequencies[i]);
+        }
+        
+        System.out.println("\n2. COMPRESSION MAPPING:");
+        System.out.println("Original\tCode");
+        System.out.println("--------\t----");
+        for (String[] mapping : mappingTable) {
+            String displayChar = mapping[0].equals(" ") ? "[space]" : 
+                               mapping[0].equals("\t") ? "[tab]" : mapping[0];
+            System.out.println("'" + displayChar + "'\t\t" + mapping[1]);
+        }
+        
+        System.out.println("\n3. TEXT COMPARISON:");
+        System.out.println("Original:    " + formatForDisplay(originalText));
+        System.out.println("Compressed:  " + formatForDisplay(compressedText));
+        System.out.println("Decompressed: " + formatForDisplay(decompressedText));
+        
+        System.out.println("\n4. COMPRESSION STATISTICS:");
+        int originalSize = originalText.length();
+        int compressedSize = compressedText.length();
+        double compressionRatio = (double) compressedSize / originalSize;
+        double efficiencyPercentage = (1 - compressionRatio) * 100;
+        
+        System.out.println("Original size: " + originalSize + " characters");
+        System.out.println("Compressed size: " + compressedSize + " characters");
+        System.out.println("Compression ratio: " + String.format("%.2f", compressionRatio) + 
+                          " (" + compressedSize + "/" + originalSize + ")");
+        System.out.println("Efficiency: " + String.format("%.1f", efficiencyPercentage) + "% reduction");
+        System.out.println("Container size: " + container.length + " bytes (format v" + FORMAT_VERSION + 
+                          ", CRC32C per block)");
+        
+        System.out.println("\n5. VALIDATION:");
+        if (validationError == null) {
+            System.out.println("✓ SUCCESS: Decompressed text matches original!");
+        } else {
+            System.out.println("✗ ERROR: Decompressed text doesn't match original!");
+            System.out.println("Reason: " + validationError);
+        }
+    }
+    
+    private static String formatForDisplay(String text) {
+        int shown = Math.min(text.length(), PREVIEW_LIMIT);
+        StringBuilder display = new StringBuilder(shown + 32);
+        for (int i = 0; i < shown; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case ' ':
+                    display.append("[space]");
+                    break;
+                case '\t':
+                    display.append("[tab]");
+                    break;
+                case '\n':
+                    display.append("[newline]");
+                    break;
+                default:
+                    display.append(c);
+            }
+        }
+        if (shown < text.length()) {
+            display.append("... (").append(text.length() - shown).append(" more characters)");
+        }
+        return display.toString();
+    }
+    
+    static class HuffmanCode {
+        final int[] symbols;
+        final int[] lengths;
+        final int[] encodeTable;
+        final int[] lookup = new int[1 << LOOKUP_BITS];
+        final int[] firstCode = new int[MAX_CODE_LENGTH + 2];
+        final int[] firstIndex = new int[MAX_CODE_LENGTH + 2];
+        final int[] lengthCounts = new int[MAX_CODE_LENGTH + 2];
+        final int maxLength;
+        
+        HuffmanCode(int[] unorderedSymbols, int[] unorderedLengths) {
+            int count = unorderedSymbols.length;
+            long[] canonical = new long[count];
+            int maxSymbol = -1;
+            for (int i = 0; i < count; i++) {
+                if (unorderedLengths[i] < 1 || unorderedLengths[i] > MAX_CODE_LENGTH) {
+                    throw new IllegalArgumentException("Invalid code length: " + unorderedLengths[i]);
+                }
+                canonical[i] = ((long) unorderedLengths[i] << 32) | unorderedSymbols[i];
+                maxSymbol = Math.max(maxSymbol, unorderedSymbols[i]);
+            }
+            Arrays.sort(canonical);
+            
+            symbols = new int[count];
+            lengths = new int[count];
+            encodeTable = new int[maxSymbol + 1];
+            
+            int code = 0;
+            int previousLength = 0;
+            int longest = 0;
+            for (int i = 0; i < count; i++) {
+                int symbol = (int) canonical[i];
+                int length = (int) (canonical[i] >>> 32);
+                code <<= length - previousLength;
+                if (length != previousLength) {
+                    firstCode[length] = code;
+                    firstIndex[length] = i;
+                }
+                if (code >>> length != 0) {
+                    throw new IllegalArgumentException("Code lengths do not form a prefix code");
+                }
+                
+                symbols[i] = symbol;
+                lengths[i] = length;
+                lengthCounts[length]++;
+                encodeTable[symbol] = (code << 5) | length;
+                
+                if (length <= LOOKUP_BITS) {
+                    int shift = LOOKUP_BITS - length;
+                    Arrays.fill(lookup, code << shift, (code + 1) << shift, (i << 5) | length);
+                }
+                
+                code++;
+                previousLength = length;
+                longest = length;
+            }
+            maxLength = longest;
+        }
+        
+        static HuffmanCode build(int[] symbols, int[] frequencies) {
+            int[] lengths = new int[symbols.length];
+            if (symbols.length == 1) {
+                lengths[0] = 1;
+            } else if (symbols.length > 1) {
+                int[] weights = new int[symbols.length];
+                for (int i = 0; i < weights.length; i++) {
+                    weights[i] = Math.max(1, frequencies[i]);
+                }
+                while (computeCodeLengths(weights, lengths) > MAX_CODE_LENGTH) {
+                    for (int i = 0; i < weights.length; i++) {
+                        weights[i] = (weights[i] >>> 1) | 1;
+                    }
+                }
+            }
+            return new HuffmanCode(symbols, lengths);
+        }
+        
+        private static int computeCodeLengths(int[] weights, int[] lengths) {
+            int leaves = weights.length;
+            long[] order = new long[leaves];
+            for (int i = 0; i < leaves; i++) {
+                order[i] = ((long) weights[i] << 32) | i;
+            }
+            Arrays.sort(order);
+            
+            int nodes = 2 * leaves - 1;
+            long[] nodeWeights = new long[nodes];
+            int[] parents = new int[nodes];
+            for (int i = 0; i < leaves; i++) {
+                nodeWeights[i] = order[i] >>> 32;
+            }
+            
+            int nextLeaf = 0;
+            int nextInternal = leaves;
+            for (int node = leaves; node < nodes; node++) {
+                int first = nextLeaf < leaves && (nextInternal >= node || nodeWeights[nextLeaf] <= nodeWeights[nextInternal])
+                          ? nextLeaf++ : nextInternal++;
+                int second = nextLeaf < leaves && (nextInternal >= node || nodeWeights[nextLeaf] <= nodeWeights[nextInternal])
+                           ? nextLeaf++ : nextInternal++;
+                nodeWeights[node] = nodeWeights[first] + nodeWeights[second];
+                parents[first] = node;
+                parents[second] = node;
+            }
+            
+            int[] depths = new int[nodes];
+            int longest = 0;
+            for (int node = nodes - 2; node >= 0; node--) {
+                depths[node] = depths[parents[node]] + 1;
+                if (node < leaves) {
+                    lengths[(int) order[node]] = depths[node];
+                    longest = Math.max(longest, depths[node]);
+                }
+            }
+            return longest;
+        }
+        
+        void encode(BitWriter writer, int symbol) {
+            int entry = symbol < encodeTable.length ? encodeTable[symbol] : 0;
+            if (entry == 0) {
+                throw new IllegalArgumentException("Symbol " + symbol + " has no Huffman code");
+            }
+            writer.writeBits(entry >>> 5, entry & 31);
+        }
+        
+        int decode(BitReader reader) {
+            int entry = lookup[reader.peek(LOOKUP_BITS)];
+            if (entry != 0) {
+                reader.skip(entry & 31);
+                return symbols[entry >>> 5];
+            }
+            for (int length = LOOKUP_BITS + 1; length <= maxLength; length++) {
+                int offset = reader.peek(length) - firstCode[length];
+                if (offset >= 0 && offset < lengthCounts[length]) {
+                    reader.skip(length);
+                    return symbols[firstIndex[length] + offset];
+                }
+            }
+            throw new IllegalArgumentException("Invalid Huffman code in compressed data");
+        }
+        
+        void decodeBytes(BitReader reader, byte[] out, int offset, int length) {
+            byte[] data = reader.data;
+            int limit = reader.limit;
+            int position = reader.position;
+            long bits = reader.bits;
+            int bitCount = reader.bitCount;
+            int mask = (1 << LOOKUP_BITS) - 1;
+            
+            for (int i = offset; i < offset + length; i++) {
+                if (bitCount < MAX_CODE_LENGTH) {
+                    while (bitCount <= 56) {
+                        bits = (bits << 8) | (position < limit ? data[position] & 0xFF : 0);
+                        position++;
+                        bitCount += 8;
+                    }
+                    if (position - limit > 8) {
+                        throw new IllegalArgumentException("Compressed data is truncated");
+                    }
+                }
+                
+                int entry = lookup[(int) (bits >>> (bitCount - LOOKUP_BITS)) & mask];
+                if (entry != 0) {
+                    bitCount -= entry & 31;
+                    out[i] = (byte) symbols[entry >>> 5];
+                } else {
+                    reader.position = position;
+                    reader.bits = bits;
+                    reader.bitCount = bitCount;
+                    out[i] = (byte) decode(reader);
+                    position = reader.position;
+                    bits = reader.bits;
+                    bitCount = reader.bitCount;
+                }
+            }
+            
+            reader.position = position;
+            reader.bits = bits;
+            reader.bitCount = bitCount;
+        }
+        
+        long decodeLiterals(BitReader reader, byte[] out, int offset, int end) {
+            byte[] data = reader.data;
+            int limit = reader.limit;
+            int position = reader.position;
+            long bits = reader.bits;
+            int bitCount = reader.bitCount;
+            int mask = (1 << LOOKUP_BITS) - 1;
+            
+            int symbol = -1;
+            int i = offset;
+            while (i < end) {
+                if (bitCount < MAX_CODE_LENGTH) {
+                    while (bitCount <= 56) {
+                        bits = (bits << 8) | (position < limit ? data[position] & 0xFF : 0);
+                        position++;
+                        bitCount += 8;
+                    }
+                    if (position - limit > 8) {
+                        throw new IllegalArgumentException("Compressed data is truncated");
+                    }
+                }
+                
+                int entry = lookup[(int) (bits >>> (bitCount - LOOKUP_BITS)) & mask];
+                if (entry != 0) {
+                    bitCount -= entry & 31;
+                    symbol = symbols[entry >>> 5];
+                } else {
+                    reader.position = position;
+                    reader.bits = bits;
+                    reader.bitCount = bitCount;
+                    symbol = decode(reader);
+                    position = reader.position;
+                    bits = reader.bits;
+                    bitCount = reader.bitCount;
+                }
+                if (symbol > 0xFF) {
+                    break;
+                }
+                out[i++] = (byte) symbol;
+                symbol = -1;
+            }
+            
+            reader.position = position;
+            reader.bits = bits;
+            reader.bitCount = bitCount;
+            return ((long) symbol << 32) | i;
+        }
+        
+        int lengthOf(int symbol) {
+            return symbol < encodeTable.length ? encodeTable[symbol] & 31 : 0;
+        }
+        
+        String codeString(int symbol) {
+            int length = lengthOf(symbol);
+            if (length == 0) {
+                return "";
+            }
+            String bits = Integer.toBinaryString(encodeTable[symbol] >>> 5);
+            return "0".repeat(length - bits.length()) + bits;
+        }
+        
+        void writeTable(BitWriter writer) {
+            long[] bySymbol = new long[symbols.length];
+            for (int i = 0; i < symbols.length; i++) {
+                bySymbol[i] = ((long) symbols[i] << 5) | lengths[i];
+            }
+            Arrays.sort(bySymbol);
+            
+            writer.writeVarint(symbols.length);
+            int previous = 0;
+            for (long entry : bySymbol) {
+                int symbol = (int) (entry >>> 5);
+                writer.writeVarint(symbol - previous);
+                writer.writeBits((int) entry & 31, 5);
+                previous = symbol;
+            }
+        }
+        
+        static HuffmanCode readTable(BitReader reader, int alphabetSize) {
+            int count = reader.readVarint();
+            if (count < 0 || count > alphabetSize) {
+                throw new IllegalArgumentException("Invalid code table size: " + count);
+            }
+            int[] symbols = new int[count];
+            int[] lengths = new int[count];
+            int symbol = 0;
+            for (int i = 0; i < count; i++) {
+                int gap = reader.readVarint();
+                if (gap < 0 || gap >= alphabetSize - symbol || (i > 0 && gap == 0)) {
+                    throw new IllegalArgumentException("Code table symbol out of range");
+                }
+                symbol += gap;
+                symbols[i] = symbol;
+                lengths[i] = reader.readBits(5);
+            }
+            return new HuffmanCode(symbols, lengths);
+        }
+    }
+    
+    static class StoredCodec implements Codec {
+        public int id() {
+            return CODEC_STORED;
+        }
+        
+        public String name() {
+            return "stored";
+        }
+        
+        public void encode(byte[] data, int offset, int length, CompressionSettings settings, BitWriter writer) {
+            writer.writeBytes(data, offset, length);
+        }
+        
+        public void decode(byte[] payload, int offset, int length, byte[] out, int rawLength) {
+            if (length != rawLength) {
+                throw new IllegalArgumentException("Stored block length mismatch");
+            }
+            System.arraycopy(payload, offset, out, 0, rawLength);
+        }
+    }
+    
+    static class SymbolCodec implements Codec {
+        public int id() {
+            return CODEC_SYMBOL;
+        }
+        
+        public String name() {
+            return "symbol";
+        }
+        
+        public void encode(byte[] data, int offset, int length, CompressionSettings settings, BitWriter writer) {
+            long started = settings.metrics.start();
+            int[][] used = usedSymbols(countBytes(data, offset, length));
+            started = settings.metrics.lap(settings.metrics.modelNanos, started);
+            encodeSymbolRanks(data, offset, length, used[0], used[1], writer);
+            settings.metrics.lap(settings.metrics.encodeNanos, started);
+        }
+        
+        public void decode(byte[] payload, int offset, int length, byte[] out, int rawLength) {
+            decodeSymbolRanks(payload, offset, length, out, rawLength);
+        }
+    }
+    
+    static class HuffmanCodec implements Codec {
+        public int id() {
+            return CODEC_HUFFMAN;
+        }
+        
+        public String name() {
+            return "huffman";
+        }
+        
+        public void encode(byte[] data, int offset, int length, CompressionSettings settings, BitWriter writer) {
+            CompressionMetrics metrics = settings.metrics;
+            long started = metrics.start();
+            int[][] used = usedSymbols(countBytes(data, offset, length));
+            started = metrics.lap(metrics.modelNanos, started);
+            HuffmanCode code = HuffmanCode.build(used[0], used[1]);
+            code.writeTable(writer);
+            started = metrics.lap(metrics.tableNanos, started);
+            for (int i = offset; i < offset + length; i++) {
+                code.encode(writer, data[i] & 0xFF);
+            }
+            metrics.lap(metrics.encodeNanos, started);
+        }
+        
+        public void decode(byte[] payload, int offset, int length, byte[] out, int rawLength) {
+            BitReader reader = new BitReader(payload, offset, length);
+            HuffmanCode.readTable(reader, 256).decodeBytes(reader, out, 0, rawLength);
+        }
+    }
+    
+    static class LzCodec implements Codec {
+        public int id() {
+            return CODEC_LZ;
+        }
+        
+        public String name() {
+            return "lz";
+        }
+        
+        public void encode(byte[] data, int offset, int length, CompressionSettings settings, BitWriter writer) {
+            encodeLz(data, offset, length, settings, writer);
+        }
+        
+        public void decode(byte[] payload, int offset, int length, byte[] out, int rawLength) {
+            decodeLz(payload, offset, length, out, rawLength);
+        }
+    }
+    
+    static class DeflateCodec implements Codec {
+        public int id() {
+            return CODEC_DEFLATE;
+        }
+        
+        public String name() {
+            return "deflate";
+        }
+        
+        public void encode(byte[] data, int offset, int length, CompressionSettings settings, BitWriter writer) {
+            long started = settings.metrics.start();
+            Deflater deflater = new Deflater(settings.level, true);
+            try {
+                deflater.setInput(data, offset, length);
+                deflater.finish();
+                byte[] buffer = new byte[Math.min(length + 64, STREAM_BUFFER_SIZE)];
+                while (!deflater.finished()) {
+                    int produced = deflater.deflate(buffer);
+                    writer.writeBytes(buffer, 0, produced);
+                }
+            } finally {
+                deflater.end();
+            }
+            settings.metrics.lap(settings.metrics.encodeNanos, started);
+        }
+        
+        public void decode(byte[] payload, int offset, int length, byte[] out, int rawLength) {
+            Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(payload, offset, length);
+                int produced = 0;
+                while (produced < rawLength && !inflater.finished()) {
+                    int inflated = inflater.inflate(out, produced, rawLength - produced);
+                    if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    produced += inflated;
+                }
+                if (produced != rawLength) {
+                    throw new IllegalArgumentException("Deflate block is shorter than its header says");
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalArgumentException("Invalid deflate data: " + e.getMessage());
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+    
+    static class BlockCompressorOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final byte[] block;
+        private final CompressionSettings settings;
+        private final BlockIndex index;
+        private long written;
+        private int filled;
+        private boolean finished;
+        
+        BlockCompressorOutputStream(OutputStream out, CompressionSettings settings) {
+            if (settings.blockSize <= 0 || settings.blockSize > MAX_BLOCK_SIZE) {
+                throw new IllegalArgumentException("Block size must be between 1 and " + MAX_BLOCK_SIZE);
+            }
+            this.out = out instanceof BufferedOutputStream ? out : new BufferedOutputStream(out, STREAM_BUFFER_SIZE);
+            this.block = new byte[settings.blockSize];
+            this.settings = settings;
+            this.index = new BlockIndex();
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            block[filled++] = (byte) b;
+            if (filled == block.length) {
+                writeBlock();
+            }
+        }
+        
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            while (length > 0) {
+                int chunk = Math.min(length, block.length - filled);
+                System.arraycopy(data, offset, block, filled, chunk);
+                filled += chunk;
+                offset += chunk;
+                length -= chunk;
+                if (filled == block.length) {
+                    writeBlock();
+                }
+            }
+        }
+        
+        private void writeHeader() throws IOException {
+            if (written == 0) {
+                writeContainerHeader(out);
+                written = CONTAINER_HEADER_SIZE;
+            }
+        }
+        
+        private void writeBlock() throws IOException {
+            writeHeader();
+            byte[] frame = encodeFrame(block, 0, filled, settings);
+            writeFrame(frame, out, index);
+            written += frame.length;
+            filled = 0;
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+        
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            if (filled > 0) {
+                writeBlock();
+            }
+            writeHeader();
+            writeVarint(out, 0);
+            index.write(out, written);
+            out.flush();
+            finished = true;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            finish();
+            out.close();
+        }
+    }
+    
+    static class BlockDecompressorInputStream extends InputStream {
+        private final InputStream in;
+        private byte[] block = new byte[0];
+        private byte[] payload = new byte[0];
+        private int position;
+        private int limit;
+        private boolean started;
+        private boolean finished;
+        long compressedBytes;
+        
+        private final CompressionMetrics metrics;
+        
+        BlockDecompressorInputStream(InputStream in) {
+            this(in, CompressionMetrics.DISABLED);
+        }
+        
+        BlockDecompressorInputStream(InputStream in, CompressionMetrics metrics) {
+            this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in, STREAM_BUFFER_SIZE);
+            this.metrics = metrics;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            if (position == limit && !nextBlock()) {
+                return -1;
+            }
+            return block[position++] & 0xFF;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (position == limit && !nextBlock()) {
+                return -1;
+            }
+            int chunk = Math.min(length, limit - position);
+            System.arraycopy(block, position, buffer, offset, chunk);
+            position += chunk;
+            return chunk;
+        }
+        
+        private boolean nextBlock() throws IOException {
+            if (!started) {
+                byte[] header = in.readNBytes(CONTAINER_HEADER_SIZE);
+                checkContainerHeader(header, header.length);
+                compressedBytes = CONTAINER_HEADER_SIZE;
+                started = true;
+            }
+            while (!finished) {
+                long allocatedBefore = metrics.allocated();
+                int rawLength = readVarint(in);
+                if (rawLength == 0) {
+                    compressedBytes++;
+                    finished = true;
+                    return false;
+                }
+                int codec = in.read();
+                int payloadLength = readVarint(in);
+                if (rawLength < 0 || rawLength > MAX_BLOCK_SIZE || payloadLength < 0 || payloadLength > 2 * MAX_BLOCK_SIZE
+                        || codec < 0) {
+                    throw new IOException("Corrupt block header in compressed stream");
+                }
+                byte[] checksum = in.readNBytes(4);
+                if (checksum.length != 4) {
+                    throw new EOFException("Unexpected end of compressed stream");
+                }
+                
+                if (block.length < rawLength) {
+                    block = new byte[rawLength];
+                }
+                if (payload.length < payloadLength) {
+                    payload = new byte[payloadLength];
+                }
+                if (in.readNBytes(payload, 0, payloadLength) != payloadLength) {
+                    throw new EOFException("Unexpected end of compressed stream");
+                }
+                compressedBytes += frameHeaderLength(rawLength, payloadLength) + payloadLength;
+                
+                decodePayload(codec, payload, 0, payloadLength, block, rawLength, ByteBuffer.wrap(checksum).getInt(), 
+                              metrics);
+                metrics.addAllocated(allocatedBefore);
+                position = 0;
+                limit = rawLength;
+                return true;
+            }
+            return false;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+    
+    static class BlockIndex {
+        int count;
+        int[] rawLengths = new int[16];
+        int[] frameLengths = new int[16];
+        long[] frameOffsets;
+        long[] rawOffsets;
+        
+        void add(int rawLength, int frameLength) {
+            if (count == rawLengths.length) {
+                rawLengths = Arrays.copyOf(rawLengths, count * 2);
+                frameLengths = Arrays.copyOf(frameLengths, count * 2);
+            }
+            rawLengths[count] = rawLength;
+            frameLengths[count] = frameLength;
+            count++;
+        }
+        
+        void write(OutputStream out, long terminatorOffset) throws IOException {
+            long indexOffset = terminatorOffset + 1;
+            writeVarint(out, count);
+            for (int i = 0; i < count; i++) {
+                writeVarint(out, rawLengths[i]);
+                writeVarint(out, frameLengths[i]);
+            }
+            
+            ByteBuffer trailer = ByteBuffer.allocate(INDEX_TRAILER_SIZE);
+            trailer.putLong(indexOffset).putInt(INDEX_MAGIC);
+            out.write(trailer.array());
+        }
+        
+        static BlockIndex read(FileChannel channel) throws IOException {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(CONTAINER_HEADER_SIZE);
+            checkContainerHeader(header.array(), Math.max(0, channel.read(header, 0)));
+            
+            ByteBuffer trailer = ByteBuffer.allocate(INDEX_TRAILER_SIZE);
+            if (size < INDEX_TRAILER_SIZE || channel.read(trailer, size - INDEX_TRAILER_SIZE) != INDEX_TRAILER_SIZE
+                    || trailer.getInt(8) != INDEX_MAGIC) {
+                throw new IOException("Compressed file has no block index");
+            }
+            
+            long indexOffset = trailer.getLong(0);
+            long indexLength = size - INDEX_TRAILER_SIZE - indexOffset;
+            if (indexOffset < CONTAINER_HEADER_SIZE + 1 || indexLength < 1 || indexLength > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt block index");
+            }
+            ByteBuffer encoded = ByteBuffer.allocate((int) indexLength);
+            while (encoded.hasRemaining()) {
+                if (channel.read(encoded, indexOffset + encoded.position()) < 0) {
+                    throw new EOFException("Unexpected end of block index");
+                }
+            }
+            
+            BlockIndex index = new BlockIndex();
+            try {
+                BitReader reader = new BitReader(encoded.array(), 0, (int) indexLength);
+                int count = reader.readVarint();
+                if (count < 0) {
+                    throw new IOException("Corrupt block index: negative block count");
+                }
+                for (int i = 0; i < count; i++) {
+                    int rawLength = reader.readVarint();
+                    int frameLength = reader.readVarint();
+                    if (rawLength < 1 || rawLength > MAX_BLOCK_SIZE || frameLength <= frameHeaderLength(rawLength, 1)
+                            || frameLength > frameHeaderLength(rawLength, rawLength) + rawLength) {
+                        throw new IOException("Corrupt block index: block " + i + " has raw length " + rawLength 
+                                              + " and frame length " + frameLength);
+                    }
+                    index.add(rawLength, frameLength);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Corrupt block index: " + e.getMessage(), e);
+            }
+            
+            index.frameOffsets = new long[index.count + 1];
+            index.rawOffsets = new long[index.count + 1];
+            index.frameOffsets[0] = CONTAINER_HEADER_SIZE;
+            for (int i = 0; i < index.count; i++) {
+                index.frameOffsets[i + 1] = index.frameOffsets[i] + index.frameLengths[i];
+                index.rawOffsets[i + 1] = index.rawOffsets[i] + index.rawLengths[i];
+            }
+            if (index.frameOffsets[index.count] != indexOffset - 1) {
+                throw new IOException("Block index does not match the compressed data");
+            }
+            return index;
+        }
+    }
+    
+    static class CompressedFile implements Closeable {
+        final BlockIndex index;
+        private final FileChannel channel;
+        private final MappedByteBuffer mapped;
+        private byte[] frame = new byte[0];
+        private int cachedBlock = -1;
+        private byte[] cachedData;
+        long blocksDecoded;
+        CompressionMetrics metrics = CompressionMetrics.DISABLED;
+        
+        private CompressedFile(FileChannel channel, BlockIndex index, MappedByteBuffer mapped) {
+            this.channel = channel;
+            this.index = index;
+            this.mapped = mapped;
+        }
+        
+        static CompressedFile open(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                BlockIndex index = BlockIndex.read(channel);
+                long dataLength = index.frameOffsets[index.count];
+                MappedByteBuffer mapped = dataLength <= Integer.MAX_VALUE
+                                        ? channel.map(FileChannel.MapMode.READ_ONLY, 0, dataLength) : null;
+                return new CompressedFile(channel, index, mapped);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+        
+        long size() {
+            return index.rawOffsets[index.count];
+        }
+        
+        byte[] read(long offset, int length) throws IOException {
+            if (offset < 0 || length < 0) {
+                throw new IllegalArgumentException("Range offset and length must not be negative");
+            }
+            long end = Math.min(size(), offset + length);
+            if (offset >= end) {
+                return new byte[0];
+            }
+            
+            byte[] result = new byte[(int) (end - offset)];
+            int block = blockContaining(offset);
+            int filled = 0;
+            while (filled < result.length) {
+                byte[] data = block(block);
+                int start = (int) (offset + filled - index.rawOffsets[block]);
+                int chunk = Math.min(data.length - start, result.length - filled);
+                System.arraycopy(data, start, result, filled, chunk);
+                filled += chunk;
+                block++;
+            }
+            return result;
+        }
+        
+        int blockContaining(long offset) {
+            int found = Arrays.binarySearch(index.rawOffsets, 0, index.count + 1, offset);
+            return found >= 0 ? found : -found - 2;
+        }
+        
+        private byte[] block(int block) throws IOException {
+            if (block == cachedBlock) {
+                return cachedData;
+            }
+            
+            long offset = index.frameOffsets[block];
+            int frameLength = index.frameLengths[block];
+            if (mapped == null) {
+                cachedData = decodeFrame(channel, offset, frameLength, index.rawLengths[block], metrics);
+            } else {
+                if (frame.length < frameLength) {
+                    frame = new byte[frameLength];
+                }
+                mapped.get((int) offset, frame, 0, frameLength);
+                cachedData = decodeFrame(frame, frameLength, index.rawLengths[block], offset, metrics);
+            }
+            cachedBlock = block;
+            blocksDecoded++;
+            return cachedData;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+    
+    static class CountingOutputStream extends FilterOutputStream {
+        long count;
+        
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+        
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            out.write(data, offset, length);
+            count += length;
+        }
+    }
+    
+    static class BitWriter {
+        private byte[] buffer;
+        private int position;
+        private long bits;
+        private int bitCount;
+        
+        BitWriter(int initialCapacity) {
+            buffer = new byte[Math.max(16, initialCapacity)];
+        }
+        
+        void writeBits(int value, int count) {
+            bits = (bits << count) | (value & ((1L << count) - 1));
+            bitCount += count;
+            while (bitCount >= 8) {
+                bitCount -= 8;
+                writeByte((int) (bits >>> bitCount));
+            }
+        }
+        
+        void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeBits((value & 0x7F) | 0x80, 8);
+                value >>>= 7;
+            }
+            writeBits(value, 8);
+        }
+        
+        void writeBytes(byte[] source, int offset, int length) {
+            if (bitCount != 0) {
+                for (int i = offset; i < offset + length; i++) {
+                    writeBits(source[i], 8);
+                }
+                return;
+            }
+            if (position + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            }
+            System.arraycopy(source, offset, buffer, position, length);
+            position += length;
+        }
+        
+        private void writeByte(int value) {
+            if (position == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[position++] = (byte) value;
+        }
+        
+        int finish() {
+            if (bitCount > 0) {
+                writeByte((int) (bits << (8 - bitCount)));
+                bitCount = 0;
+            }
+            return position;
+        }
+        
+        byte[] array() {
+            return buffer;
+        }
+        
+        void reset() {
+            position = 0;
+            bits = 0;
+            bitCount = 0;
+        }
+        
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, finish());
+        }
+    }
+    
+    static class BitReader {
+        private final byte[] data;
+        private final int limit;
+        private int position;
+        private long bits;
+        private int bitCount;
+        
+        BitReader(byte[] data, int offset, int length) {
+            this.data = data;
+            this.position = offset;
+            this.limit = offset + length;
+        }
+        
+        int peek(int count) {
+            if (bitCount < count) {
+                while (bitCount <= 56) {
+                    bits = (bits << 8) | (position < limit ? data[position] & 0xFF : 0);
+                    position++;
+                    bitCount += 8;
+                }
+                if (position - limit > 8) {
+                    throw new IllegalArgumentException("Compressed data is truncated");
+                }
+            }
+            return (int) (bits >>> (bitCount - count)) & ((1 << count) - 1);
+        }
+        
+        void skip(int count) {
+            bitCount -= count;
+        }
+        
+        int readBits(int count) {
+            int value = peek(count);
+            bitCount -= count;
+            return value;
+        }
+        
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readBits(8);
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in compressed data");
+        }
+    }
+    
+    static class CompressionMetrics {
+        static final CompressionMetrics DISABLED = new CompressionMetrics(false);
+        
+        final boolean enabled;
+        final LongAdder rawBytes = new LongAdder();
+        final LongAdder compressedBytes = new LongAdder();
+        final LongAdder[] blocksByCodec = new LongAdder[CODECS.length];
+        final DoubleAdder entropyBits = new DoubleAdder();
+        final LongAdder modelNanos = new LongAdder();
+        final LongAdder tableNanos = new LongAdder();
+        final LongAdder encodeNanos = new LongAdder();
+        final LongAdder decodeNanos = new LongAdder();
+        final LongAdder checksumNanos = new LongAdder();
+        final LongAdder allocatedBytes = new LongAdder();
+        long wallNanos;
+        long returnedBytes = -1;
+        
+        CompressionMetrics() {
+            this(true);
+        }
+        
+        private CompressionMetrics(boolean enabled) {
+            this.enabled = enabled;
+            for (int i = 0; i < blocksByCodec.length; i++) {
+                blocksByCodec[i] = new LongAdder();
+            }
+        }
+        
+        long start() {
+            return enabled ? System.nanoTime() : 0;
+        }
+        
+        long lap(LongAdder phase, long since) {
+            if (!enabled) {
+                return 0;
+            }
+            long now = System.nanoTime();
+            phase.add(now - since);
+            return now;
+        }
+        
+        long allocated() {
+            return enabled && Allocation.SUPPORTED ? Allocation.THREADS.getCurrentThreadAllocatedBytes() : 0;
+        }
+        
+        void addAllocated(long since) {
+            if (enabled && Allocation.SUPPORTED) {
+                allocatedBytes.add(Allocation.THREADS.getCurrentThreadAllocatedBytes() - since);
+            }
+        }
+        
+        void recordBlock(int codec, int rawLength, int frameLength) {
+            if (enabled) {
+                rawBytes.add(rawLength);
+                compressedBytes.add(frameLength);
+                blocksByCodec[codec].increment();
+            }
+        }
+        
+        long blocks() {
+            long blocks = 0;
+            for (LongAdder count : blocksByCodec) {
+                blocks += count.sum();
+            }
+            return blocks;
+        }
+        
+        double bitsPerByte() {
+            long raw = rawBytes.sum();
+            return raw == 0 ? 0 : compressedBytes.sum() * 8.0 / raw;
+        }
+        
+        double entropyBitsPerByte() {
+            long raw = rawBytes.sum();
+            return raw == 0 ? 0 : entropyBits.sum() / raw;
+        }
+        
+        double throughput() {
+            long bytes = returnedBytes >= 0 ? returnedBytes : rawBytes.sum();
+            return wallNanos == 0 ? 0 : bytes * 1e9 / wallNanos;
+        }
+        
+        void print(PrintStream out, String operation) {
+            StringBuilder codecs = new StringBuilder();
+            for (int i = 0; i < blocksByCodec.length; i++) {
+                if (blocksByCodec[i].sum() > 0) {
+                    codecs.append(codecs.length() == 0 ? "" : ", ")
+                          .append(CODECS[i].name()).append(" x").append(blocksByCodec[i].sum());
+                }
+            }
+            
+            out.println("Metrics (" + operation + "):");
+            out.println("  Blocks: " + blocks() + (codecs.length() == 0 ? "" : " (" + codecs + ")"));
+            out.println("  Raw bytes: " + rawBytes.sum() + ", compressed bytes: " + compressedBytes.sum());
+            if (returnedBytes >= 0) {
+                out.println("  Returned bytes: " + returnedBytes);
+            }
+            if (entropyBits.sum() > 0) {
+                out.println(String.format("  Rate: %.3f bits/byte achieved, %.3f bits/byte order-0 entropy", 
+                                          bitsPerByte(), entropyBitsPerByte()));
+            } else {
+                out.println(String.format("  Rate: %.3f bits/byte", bitsPerByte()));
+            }
+            out.println(String.format("  Time: model %.2f ms, table %.2f ms, encode %.2f ms, decode %.2f ms, " + 
+                                      "checksum %.2f ms, wall %.2f ms", 
+                                      modelNanos.sum() / 1e6, tableNanos.sum() / 1e6, encodeNanos.sum() / 1e6, 
+                                      decodeNanos.sum() / 1e6, checksumNanos.sum() / 1e6, wallNanos / 1e6));
+            out.println(String.format("  Throughput: %.1f MB/s", throughput() / 1e6));
+            if (Allocation.SUPPORTED) {
+                out.println(String.format("  Allocated: %.1f MB", allocatedBytes.sum() / 1e6));
+            }
+        }
+        
+        String toJson(String operation) {
+            StringBuilder json = new StringBuilder();
+            json.append("{\"operation\":\"").append(operation).append('"');
+            json.append(",\"blocks\":").append(blocks());
+            json.append(",\"blocksByCodec\":{");
+            for (int i = 0; i < blocksByCodec.length; i++) {
+                json.append(i == 0 ? "" : ",").append('"').append(CODECS[i].name()).append("\":").append(blocksByCodec[i].sum());
+            }
+            json.append('}');
+            json.append(",\"rawBytes\":").append(rawBytes.sum());
+            json.append(",\"compressedBytes\":").append(compressedBytes.sum());
+            json.append(",\"returnedBytes\":").append(returnedBytes >= 0 ? String.valueOf(returnedBytes) : "null");
+            json.append(",\"bitsPerByte\":").append(bitsPerByte());
+            json.append(",\"entropyBitsPerByte\":").append(entropyBits.sum() > 0 ? String.valueOf(entropyBitsPerByte()) : "null");
+            json.append(",\"modelNanos\":").append(modelNanos.sum());
+            json.append(",\"tableNanos\":").append(tableNanos.sum());
+            json.append(",\"encodeNanos\":").append(encodeNanos.sum());
+            json.append(",\"decodeNanos\":").append(decodeNanos.sum());
+            json.append(",\"checksumNanos\":").append(checksumNanos.sum());
+            json.append(",\"wallNanos\":").append(wallNanos);
+            json.append(",\"bytesPerSecond\":").append(Math.round(throughput()));
+            json.append(",\"allocatedBytes\":").append(Allocation.SUPPORTED ? String.valueOf(allocatedBytes.sum()) : "null");
+            return json.append('}').toString();
+        }
+        
+        private static class Allocation {
+            static final com.sun.management.ThreadMXBean THREADS = threads();
+            static final boolean SUPPORTED = THREADS != null;
+            
+            private static com.sun.management.ThreadMXBean threads() {
+                ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+                if (bean instanceof com.sun.management.ThreadMXBean) {
+                    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                    if (threads.isThreadAllocatedMemorySupported()) {
+                        threads.setThreadAllocatedMemoryEnabled(true);
+                        return threads;
+                    }
+                }
+                return null;
+            }
+        }
+    }
+    
+    static class CompressionSettings {
+        int codec = CODEC_HUFFMAN;
+        int blockSize = DEFAULT_BLOCK_SIZE;
+        int level = 6;
+        int windowSize = 1 << 16;
+        CompressionMetrics metrics = CompressionMetrics.DISABLED;
+        
+        CompressionSettings withCodec(int codec) {
+            CompressionSettings copy = new CompressionSettings();
+            copy.codec = codec;
+            copy.blockSize = blockSize;
+            copy.level = level;
+            copy.windowSize = windowSize;
+            copy.metrics = metrics;
+            return copy;
+        }
+        
+        int maxChain() {
+            return 2 << level;
+        }
+        
+        int niceLength() {
+            return level >= 9 ? LZ_MAX_MATCH : 8 << (level / 2);
+        }
+    }
+    
+    static class Benchmark {
+        private static final int WARMUP_ITERATIONS = 1;
+        
+        static void run(Options options) {
+            byte[] corpus;
+            try {
+                corpus = Files.readAllBytes(Paths.get(options.inputPath));
+            } catch (IOException e) {
+                System.out.println("Error reading corpus: " + e.getMessage());
+                return;
+            }
+            
+            System.out.println("TextCompression benchmark: " + corpus.length + " bytes, block size " + 
+                              options.settings.blockSize + ", level " + options.settings.level + ", window " + 
+                              options.settings.windowSize + " (" + WARMUP_ITERATIONS + " warmup, " + 
+                              options.benchmarkIterations + " measured iterations, single-threaded)");
+            System.out.printf("%-9s %12s %7s %14s %16s  %s%n", "codec", "bytes", "ratio", "compress MB/s", 
+                              "decompress MB/s", "blocks");
+            
+            int[] codecs = new int[CODECS.length + 1];
+            for (int i = 0; i < CODECS.length; i++) {
+                codecs[i] = CODECS[i].id();
+            }
+            codecs[CODECS.length] = CODEC_AUTO;
+            
+            for (int codec : codecs) {
+                CompressionSettings settings = options.settings.withCodec(codec);
+                byte[] compressed = null;
+                byte[] restored = null;
+                long compressNanos = 0;
+                long decompressNanos = 0;
+                
+                try {
+                    for (int i = 0; i < WARMUP_ITERATIONS + options.benchmarkIterations; i++) {
+                        long started = System.nanoTime();
+                        compressed = compressBytes(corpus, settings);
+                        long compressedAt = System.nanoTime();
+                        restored = decompressBytes(compressed);
+                        long finished = System.nanoTime();
+                        if (i >= WARMUP_ITERATIONS) {
+                            compressNanos += compressedAt - started;
+                            decompressNanos += finished - compressedAt;
+                        }
+                    }
+                } catch (IOException e) {
+                    System.out.println("Error: " + e.getMessage());
+                    return;
+                }
+                
+                String name = codec == CODEC_AUTO ? "auto" : codecFor(codec).name();
+                if (!Arrays.equals(corpus, restored)) {
+                    System.out.println(name + ": round-trip FAILED");
+                    continue;
+                }
+                double megabytes = corpus.length / 1e6 * options.benchmarkIterations;
+                System.out.printf("%-9s %12d %7.3f %14.1f %16.1f  %s%n", name, compressed.length, 
+                                  (double) compressed.length / Math.max(1, corpus.length), 
+                                  megabytes / (compressNanos / 1e9), megabytes / (decompressNanos / 1e9), 
+                                  describeBlocks(compressed));
+            }
+        }
+        
+        static String describeBlocks(byte[] container) {
+            int[] counts = new int[CODECS.length];
+            BitReader reader = new BitReader(container, CONTAINER_HEADER_SIZE, container.length - CONTAINER_HEADER_SIZE);
+            int position = CONTAINER_HEADER_SIZE;
+            int rawLength;
+            while ((rawLength = reader.readVarint()) != 0) {
+                int codec = reader.readBits(8);
+                int payloadLength = reader.readVarint();
+                counts[codec]++;
+                position += frameHeaderLength(rawLength, payloadLength) + payloadLength;
+                reader = new BitReader(container, position, container.length - position);
+            }
+            
+            StringBuilder description = new StringBuilder();
+            for (int codec = 0; codec < counts.length; codec++) {
+                if (counts[codec] > 0) {
+                    description.append(description.length() == 0 ? "" : ", ")
+                               .append(CODECS[codec].name()).append(" x").append(counts[codec]);
+                }
+            }
+            return description.toString();
+        }
+    }
+    
+    static class Options {
+        String mode;
+        String inputPath;
+        String outputPath;
+        CompressionSettings settings = new CompressionSettings();
+        int threads = Runtime.getRuntime().availableProcessors();
+        long offset;
+        int length = Integer.MAX_VALUE;
+        int benchmarkIterations = 3;
+        boolean metrics;
+        String metricsJson;
+        
+        static Options parse(String[] args) {
+            Options options = new Options();
+            
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--compress":
+                    case "--decompress":
+                    case "--extract":
+                        if (options.mode != null) {
+                            throw new IllegalArgumentException("Only one of --compress, --decompress, --extract and --bench may be given");
+                        }
+                        String option = args[i];
+                        options.mode = option.substring(2);
+                        options.inputPath = requireValue(args, ++i, option);
+                        options.outputPath = requireValue(args, ++i, option);
+                        break;
+                    case "--block-size":
+                        options.settings.blockSize = parsePositiveInt(requireValue(args, ++i, "--block-size"), "--block-size");
+                        if (options.settings.blockSize > MAX_BLOCK_SIZE) {
+                            throw new IllegalArgumentException("--block-size may not exceed " + MAX_BLOCK_SIZE);
+                        }
+                        break;
+                    case "--codec":
+                        options.settings.codec = parseCodec(requireValue(args, ++i, "--codec"));
+                        break;
+                    case "--level":
+                        options.settings.level = parsePositiveInt(requireValue(args, ++i, "--level"), "--level");
+                        if (options.settings.level > 9) {
+                            throw new IllegalArgumentException("--level expects 1 to 9, got: " + options.settings.level);
+                        }
+                        break;
+                    case "--window":
+                        options.settings.windowSize = parsePositiveInt(requireValue(args, ++i, "--window"), "--window");
+                        if (Integer.bitCount(options.settings.windowSize) != 1 || options.settings.windowSize < 1 << 10
+                                || options.settings.windowSize > 1 << 24) {
+                            throw new IllegalArgumentException("--window expects a power of two between 1024 and 16777216, got: "
+                                    + options.settings.windowSize);
+                        }
+                        break;
+                    case "--bench":
+                        if (options.mode != null) {
+                            throw new IllegalArgumentException("--bench cannot be combined with another mode");
+                        }
+                        options.mode = "bench";
+                        options.inputPath = requireValue(args, ++i, "--bench");
+                        break;
+                    case "--bench-iterations":
+                        options.benchmarkIterations = parsePositiveInt(requireValue(args, ++i, "--bench-iterations"),
+                                "--bench-iterations");
+                        break;
+                    case "--offset":
+                        options.offset = parseNonNegativeLong(requireValue(args, ++i, "--offset"), "--offset");
+                        break;
+                    case "--length":
+                        options.length = parsePositiveInt(requireValue(args, ++i, "--length"), "--length");
+                        break;
+                    case "--threads":
+                        options.threads = parsePositiveInt(requireValue(args, ++i, "--threads"), "--threads");
+                        break;
+                    case "--metrics":
+                        options.metrics = true;
+                        break;
+                    case "--metrics-json":
+                        options.metricsJson = requireValue(args, ++i, "--metrics-json");
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            
+            return options;
+        }
+        
+        private static int parseCodec(String name) {
+            if (name.equals("auto")) {
+                return CODEC_AUTO;
+            }
+            for (Codec codec : CODECS) {
+                if (codec.name().equals(name)) {
+                    return codec.id();
+                }
+            }
+            throw new IllegalArgumentException("--codec expects auto, stored, symbol, huffman, lz or deflate, got: " + name);
+        }
+        
+        private static String requireValue(String[] args, int index, String option) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            return args[index];
+        }
+        
+        private static int parsePositiveInt(String value, String option) {
+            try {
+                int number = Integer.parseInt(value);
+                if (number > 0) {
+                    return number;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to the error below
+            }
+            throw new IllegalArgumentException(option + " expects a positive integer, got: " + value);
+        }
+        
+        private static long parseNonNegativeLong(String value, String option) {
+            try {
+                long number = Long.parseLong(value);
+                if (number >= 0) {
+                    return number;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to the error below
             }
+            throw new IllegalArgumentException(option + " expects a non-negative integer, got: " + value);
         }
-        return minLength;
     }
 }